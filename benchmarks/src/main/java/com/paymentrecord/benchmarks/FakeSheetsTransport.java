@@ -0,0 +1,55 @@
+package com.paymentrecord.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process {@link HttpTransport} answering Sheets calls from a
+ * {@link FakeSpreadsheet}. Every call sleeps for the configured latency
+ * and is counted, so a benchmark can report API calls per save.
+ */
+final class FakeSheetsTransport extends HttpTransport {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final FakeSpreadsheet spreadsheet = new FakeSpreadsheet();
+    private final long latencyNanos;
+    private final AtomicLong calls = new AtomicLong();
+
+    FakeSheetsTransport(long latencyMicros) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                calls.incrementAndGet();
+                if (latencyNanos > 0) {
+                    LockSupport.parkNanos(latencyNanos);
+                }
+                String content = getContentAsString();
+                JsonNode body = content == null || content.isEmpty() ? json.createObjectNode() : json.readTree(content);
+                return new MockLowLevelHttpResponse()
+                        .setStatusCode(200)
+                        .setContentType("application/json; charset=UTF-8")
+                        .setContent(json.writeValueAsBytes(spreadsheet.handle(method, new GenericUrl(url), body)));
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.paymentrecord.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first save after a restart: a fresh service (empty caches) saves one
+ * payment into a month sheet holding {@code rowsInSheet} payments. The
+ * sheet is validated while the service starts, so the time is hydrating the
+ * row cursor, daily totals and summary index from the sheet. This is the one save that is
+ * expected to grow with the sheet; it should grow linearly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirstSaveBenchmark {
+
+    @Param({"0", "1000", "10000", "50000"})
+    public int rowsInSheet;
+
+    @Param({"0"})
+    public long latencyMicros;
+
+    private FakeSheetsTransport transport;
+    private PaymentPipeline restarted;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        transport = new FakeSheetsTransport(latencyMicros);
+        PaymentPipeline seeding = new PaymentPipeline(transport);
+        seeding.seed(rowsInSheet);
+        seeding.close();
+        next = rowsInSheet;
+    }
+
+    @Setup(Level.Invocation)
+    public void restart() throws Exception {
+        restarted = new PaymentPipeline(transport);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        restarted.close();
+    }
+
+    @Benchmark
+    public int firstSave() throws Exception {
+        return restarted.sheetService.savePayment(PaymentPipeline.payment(next++));
+    }
+}
@@ -0,0 +1,238 @@
+package com.paymentrecord.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.paymentrecord.dto.PaymentRequest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load driver for a running service: concurrent workers fire
+ * {@code POST /payment/save} and, with the given probability, NDJSON
+ * {@code POST /payment/bulk} requests for a fixed time, then report p50,
+ * p90, p99 and max latency per request type and the sustained throughput.
+ *
+ * Saves are acknowledged once they are in the ledger, so afterwards the
+ * driver polls {@code /actuator/prometheus} until the write queue and projection
+ * backlog are empty and also reports throughput into the sheets.
+ *
+ * Run from the repository root while the service is up (against
+ * {@link SheetsStandIn}, which shows how to start both):
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.paymentrecord.benchmarks.LoadDriver \
+ *     --target=http://localhost:8080 --concurrency=32 --duration-seconds=60 \
+ *     --warmup-seconds=10 --bulk-ratio=0.01 --bulk-size=500
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final Pattern GAUGE = Pattern.compile(
+            "^paymentrecord_(write_queue_outstanding|projection_backlog) (\\S+)$", Pattern.MULTILINE);
+
+    private final ObjectMapper json = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    private final String target;
+    private final double bulkRatio;
+    private final int bulkSize;
+
+    LoadDriver(String target, double bulkRatio, int bulkSize) {
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.bulkRatio = bulkRatio;
+        this.bulkSize = bulkSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        LoadDriver driver = new LoadDriver(
+                options.get("target", "http://localhost:8080"),
+                options.getDouble("bulk-ratio", 0.01),
+                options.getInt("bulk-size", 500));
+        driver.run(options.getInt("concurrency", 16),
+                options.getInt("warmup-seconds", 5),
+                options.getInt("duration-seconds", 30));
+    }
+
+    void run(int concurrency, int warmupSeconds, int durationSeconds) throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        System.out.printf("Driving %s with %d workers: %d s warm-up, %d s measured%n",
+                target, concurrency, warmupSeconds, durationSeconds);
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(measureFrom, end);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Latencies saves = new Latencies();
+        Latencies bulks = new Latencies();
+        long payments = 0;
+        for (Worker worker : workers) {
+            saves.addAll(worker.saves);
+            bulks.addAll(worker.bulks);
+            payments += worker.payments;
+        }
+
+        System.out.println();
+        saves.print("POST /payment/save", durationSeconds);
+        bulks.print("POST /payment/bulk", durationSeconds);
+        System.out.printf("Acknowledged: %.1f payments/s%n", payments / (double) durationSeconds);
+        if (!failures.isEmpty()) {
+            System.out.println("Failures: " + new TreeMap<>(failures));
+        }
+
+        long drainStart = System.nanoTime();
+        if (awaitDrained(TimeUnit.MINUTES.toNanos(10))) {
+            double drainSeconds = (System.nanoTime() - drainStart) / 1e9;
+            System.out.printf("Drained to the sheets %.1f s after the load stopped: %.1f payments/s end to end%n",
+                    drainSeconds, payments / (durationSeconds + drainSeconds));
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final long measureFrom;
+        private final long end;
+        private final Latencies saves = new Latencies();
+        private final Latencies bulks = new Latencies();
+        private long payments;
+
+        private Worker(long measureFrom, long end) {
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < end) {
+                boolean bulk = bulkRatio > 0 && ThreadLocalRandom.current().nextDouble() < bulkRatio;
+                int count = bulk ? bulkSize : 1;
+                long started = System.nanoTime();
+                boolean ok = bulk ? send("/payment/bulk", "application/x-ndjson", ndjson(count))
+                        : send("/payment/save", "application/json", payload());
+                long finished = System.nanoTime();
+                if (ok && started >= measureFrom && finished <= end) {
+                    (bulk ? bulks : saves).add(finished - started);
+                    payments += count;
+                }
+            }
+        }
+    }
+
+    private boolean send(String path, String contentType, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 == 2) return true;
+            failures.computeIfAbsent(path + " " + response.statusCode(), k -> new LongAdder()).increment();
+        } catch (Exception e) {
+            failures.computeIfAbsent(path + " " + e.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        }
+        return false;
+    }
+
+    private String payload() {
+        try {
+            return json.writeValueAsString(PaymentPipeline.payment(sequence.getAndIncrement()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String ndjson(int count) {
+        StringBuilder body = new StringBuilder(count * 160);
+        for (int i = 0; i < count; i++) {
+            body.append(payload()).append('\n');
+        }
+        return body.toString();
+    }
+
+    private boolean awaitDrained(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() < deadline) {
+            try {
+                String metrics = client.send(HttpRequest.newBuilder(URI.create(target + "/actuator/prometheus")).build(),
+                        HttpResponse.BodyHandlers.ofString()).body();
+                double pending = 0;
+                Matcher m = GAUGE.matcher(metrics);
+                while (m.find()) {
+                    pending += Double.parseDouble(m.group(2));
+                }
+                if (pending == 0) return true;
+            } catch (Exception e) {
+                System.out.println("Cannot read /actuator/prometheus, skipping the drain check: " + e.getMessage());
+                return false;
+            }
+            Thread.sleep(200);
+        }
+        System.out.println("Still projecting after the drain timeout");
+        return false;
+    }
+
+    /**
+     * Latencies in nanoseconds, unsorted until printed.
+     */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        private void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        private void print(String name, int seconds) {
+            if (size == 0) return;
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            System.out.printf("%-20s %8d requests %8.1f/s   p50 %7.1f ms   p90 %7.1f ms   p99 %7.1f ms   max %7.1f ms%n",
+                    name, size, size / (double) seconds,
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), sorted[size - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.paymentrecord.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name=value} command-line options for the load-test tools.
+ */
+final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+    }
+
+    String get(String name, String fallback) {
+        return values.getOrDefault(name, fallback);
+    }
+
+    int getInt(String name, int fallback) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : fallback;
+    }
+
+    long getLong(String name, long fallback) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : fallback;
+    }
+
+    double getDouble(String name, double fallback) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : fallback;
+    }
+}
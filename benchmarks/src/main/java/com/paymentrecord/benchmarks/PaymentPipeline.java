@@ -0,0 +1,103 @@
+package com.paymentrecord.benchmarks;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.sheets.v4.Sheets;
+import com.paymentrecord.config.GoogleSheetConfig;
+import com.paymentrecord.dto.PaymentRequest;
+import com.paymentrecord.service.DailyTotalsStore;
+import com.paymentrecord.service.GoogleSheetService;
+import com.paymentrecord.service.MonthSheetProvisioner;
+import com.paymentrecord.service.PayerSketches;
+import com.paymentrecord.service.PaymentCodes;
+import com.paymentrecord.service.PaymentIndex;
+import com.paymentrecord.service.PaymentMetrics;
+import com.paymentrecord.service.PaymentRollups;
+import com.paymentrecord.service.SheetBlockChecksums;
+import com.paymentrecord.service.SheetMetadataCache;
+import com.paymentrecord.service.SheetRowCursors;
+import com.paymentrecord.service.SheetsCallExecutor;
+import com.paymentrecord.service.SheetsExecutor;
+import com.paymentrecord.service.SummaryIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link GoogleSheetService} wired by hand (no Spring context) to a
+ * {@link FakeSheetsTransport}, with quotas and retries out of the way.
+ * Each instance starts with empty caches, like a freshly started service.
+ */
+final class PaymentPipeline {
+
+    private static final String[] CHANNELS = {"UPI", "CARD", "NETBANKING", "CASH"};
+    private static final String[] STATUSES = {"success", "success", "success", "failed", "pending"};
+    private static final LocalDate MONTH_START = LocalDate.of(2026, 10, 1);
+    private static final int MAX_ROWS_PER_SHEET = 100_000;
+
+    final GoogleSheetService sheetService;
+    final SheetsExecutor sheetsExecutor;
+
+    PaymentPipeline(FakeSheetsTransport transport) throws Exception {
+        Sheets sheets = new Sheets.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                .setApplicationName("paymentrecord-benchmarks")
+                .build();
+        GoogleSheetConfig config = new GoogleSheetConfig("benchmark-spreadsheet", "") {
+            @Override
+            public Sheets getSheetsService() {
+                return sheets;
+            }
+
+            @Override
+            public void refreshCredentials() {
+            }
+        };
+
+        PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry());
+        PaymentCodes codes = new PaymentCodes();
+        SheetsCallExecutor calls = new SheetsCallExecutor(metrics,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 1, 0, 0, Integer.MAX_VALUE, 0);
+        SheetMetadataCache metadataCache = new SheetMetadataCache(calls);
+        SheetRowCursors rowCursors = new SheetRowCursors(calls);
+        DailyTotalsStore dailyTotals = new DailyTotalsStore();
+        SummaryIndex summaryIndex = new SummaryIndex();
+        this.sheetsExecutor = new SheetsExecutor(metrics, 1);
+        // One partition holds every seeded row, so runs measure saves rather than overflow
+        MonthSheetProvisioner provisioner = new MonthSheetProvisioner(config, metadataCache,
+                rowCursors, dailyTotals, summaryIndex, calls, sheetsExecutor, 7, 5000, MAX_ROWS_PER_SHEET);
+        this.sheetService = new GoogleSheetService(config, metadataCache, rowCursors, dailyTotals,
+                summaryIndex, calls, sheetsExecutor, provisioner,
+                new PaymentIndex(codes, new PaymentRollups(codes), new PayerSketches(codes)), metrics, new SheetBlockChecksums(500),
+                6, 5000, MAX_ROWS_PER_SHEET);
+
+        // What the scheduler does ahead of time in the service
+        provisioner.ensure(MONTH_START);
+    }
+
+    /**
+     * Writes {@code count} payments into the October 2026 sheet, in bulk-import sized batches.
+     */
+    void seed(int count) throws Exception {
+        for (int i = 0; i < count; i += 500) {
+            List<PaymentRequest> batch = new ArrayList<>();
+            for (int j = i; j < Math.min(i + 500, count); j++) {
+                batch.add(payment(j));
+            }
+            sheetService.saveBatch(batch);
+        }
+    }
+
+    void close() {
+        sheetsExecutor.shutdown();
+    }
+
+    /**
+     * A deterministic payment spread over the days, channels and statuses of one month.
+     */
+    static PaymentRequest payment(long n) {
+        return new PaymentRequest(MONTH_START.plusDays(n % 28), CHANNELS[(int) (n % CHANNELS.length)],
+                "User " + (n % 500), "user" + (n % 500) + "@upi", 100 + (n % 900) + 0.5,
+                STATUSES[(int) (n % STATUSES.length)]);
+    }
+}
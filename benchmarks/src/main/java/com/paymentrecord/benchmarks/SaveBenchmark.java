@@ -0,0 +1,94 @@
+package com.paymentrecord.benchmarks;
+
+import com.paymentrecord.dto.PaymentRequest;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state saves through {@link com.paymentrecord.service.GoogleSheetService}
+ * into a month sheet that already holds {@code rowsInSheet} payments.
+ *
+ * The score is saves/sec. {@code sheetsCalls} is reported in calls/sec, so
+ * calls per save is {@code sheetsCalls / score}; run with {@code -prof gc}
+ * and {@code gc.alloc.rate.norm} is bytes allocated per save. A score that
+ * drops as {@code rowsInSheet} grows means a save has started to read or
+ * recompute the sheet again. {@code -p latencyMicros=150000} adds a
+ * realistic Sheets round-trip to every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"0", "1000", "10000", "50000"})
+    public int rowsInSheet;
+
+    @Param({"0"})
+    public long latencyMicros;
+
+    private FakeSheetsTransport transport;
+    private PaymentPipeline pipeline;
+    private long next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SheetsCalls {
+        public long sheetsCalls;
+    }
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        transport = new FakeSheetsTransport(latencyMicros);
+        pipeline = new PaymentPipeline(transport);
+        pipeline.seed(rowsInSheet);
+        next = rowsInSheet;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public int saveOne(SheetsCalls counters) throws Exception {
+        long before = transport.calls();
+        int row = pipeline.sheetService.savePayment(PaymentPipeline.payment(next++));
+        counters.sheetsCalls += transport.calls() - before;
+        return row;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Integer> saveBatch(SheetsCalls counters) throws Exception {
+        List<PaymentRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(PaymentPipeline.payment(next++));
+        }
+        long before = transport.calls();
+        List<Integer> rows = pipeline.sheetService.saveBatch(batch);
+        counters.sheetsCalls += transport.calls() - before;
+        return rows;
+    }
+}
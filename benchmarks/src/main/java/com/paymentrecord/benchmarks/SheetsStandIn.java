@@ -0,0 +1,155 @@
+package com.paymentrecord.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.api.client.http.GenericUrl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local HTTP stand-in for the Sheets v4 API, for load tests that must not
+ * touch the real spreadsheet or its quota. Point the service at it with
+ * {@code --paymentrecord.sheets.root-url=http://localhost:9090/}.
+ *
+ * Like Google, it meters read (GET) and write requests per minute and
+ * answers 429 RESOURCE_EXHAUSTED past the limit, and it adds a latency
+ * with jitter to every call. An optional error rate injects 503s.
+ *
+ * From the repository root, after {@code mvn install -DskipTests} and
+ * {@code mvn package} in {@code benchmarks/}, start the stand-in and then
+ * the service against it:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.paymentrecord.benchmarks.SheetsStandIn \
+ *     --port=9090 --latency-ms=150 --jitter-ms=50 --reads-per-minute=300 --writes-per-minute=300
+ * java -jar target/paymentrecord-0.0.1-SNAPSHOT-exec.jar \
+ *     --paymentrecord.sheets.root-url=http://localhost:9090/ --paymentrecord.data-dir=/tmp/paymentrecord
+ * </pre>
+ */
+public final class SheetsStandIn {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final FakeSpreadsheet spreadsheet = new FakeSpreadsheet();
+    private final MinuteQuota reads;
+    private final MinuteQuota writes;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+
+    SheetsStandIn(int readsPerMinute, int writesPerMinute, long latencyMillis, long jitterMillis, double errorRate) {
+        this.reads = new MinuteQuota(readsPerMinute);
+        this.writes = new MinuteQuota(writesPerMinute);
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        int port = options.getInt("port", 9090);
+        SheetsStandIn standIn = new SheetsStandIn(
+                options.getInt("reads-per-minute", 300),
+                options.getInt("writes-per-minute", 300),
+                options.getLong("latency-ms", 150),
+                options.getLong("jitter-ms", 50),
+                options.getDouble("error-rate", 0));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 256);
+        server.createContext("/v4/spreadsheets/", standIn::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        System.out.printf("Sheets stand-in listening on http://localhost:%d/%n", port);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            delay();
+
+            String method = exchange.getRequestMethod();
+            MinuteQuota quota = method.equals("GET") ? reads : writes;
+            if (!quota.tryAcquire()) {
+                respond(exchange, 429, error(429, "RESOURCE_EXHAUSTED", "Quota exceeded for quota metric '"
+                        + (quota == reads ? "Read" : "Write") + " requests' and limit 'per minute'"));
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                respond(exchange, 503, error(503, "UNAVAILABLE", "The service is currently unavailable."));
+                return;
+            }
+
+            JsonNode body = readBody(exchange);
+            GenericUrl url = new GenericUrl("http://localhost" + exchange.getRequestURI());
+            try {
+                respond(exchange, 200, spreadsheet.handle(method, url, body));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(400, "INVALID_ARGUMENT", e.getMessage()));
+            }
+        }
+    }
+
+    private void delay() {
+        long millis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1) : 0);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        byte[] bytes = in.readAllBytes();
+        return bytes.length == 0 ? json.createObjectNode() : json.readTree(bytes);
+    }
+
+    private ObjectNode error(int code, String status, String message) {
+        ObjectNode root = json.createObjectNode();
+        root.putObject("error").put("code", code).put("message", message).put("status", status);
+        return root;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = json.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Requests allowed per one-minute window, like Google's per-minute quotas.
+     */
+    private static final class MinuteQuota {
+        private final int limit;
+        private long window;
+        private int used;
+
+        private MinuteQuota(int limit) {
+            this.limit = limit;
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = TimeUnit.NANOSECONDS.toMinutes(System.nanoTime());
+            if (now != window) {
+                window = now;
+                used = 0;
+            }
+            return limit <= 0 || used++ < limit;
+        }
+    }
+}
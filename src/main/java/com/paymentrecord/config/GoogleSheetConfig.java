@@ -30,47 +30,124 @@
 
 package com.paymentrecord.config;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.apache.v2.GoogleApacheHttpTransport;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.oauth2.GoogleCredentials;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Base64;
 import java.util.Collections;
 
+/**
+ * Owns the single Sheets client used by the whole application.
+ *
+ * The client is built lazily on first use (so the context still starts when
+ * GOOGLE_CREDENTIALS is missing) and then reused: one pooled Apache transport
+ * keeps TLS connections to sheets.googleapis.com alive, and one
+ * {@link GoogleCredentials} instance caches the access token and refreshes it
+ * ahead of expiry instead of fetching a new token per request.
+ *
+ * The spreadsheet and the API root URL are configurable, so load tests can
+ * run against a local Sheets stand-in; with a custom root URL and no
+ * GOOGLE_CREDENTIALS the client sends unauthenticated requests.
+ */
+@Configuration
 public class GoogleSheetConfig {
 
-    public static Sheets getSheetsService() throws Exception {
+    private static final String APPLICATION_NAME = "Payment Dashboard";
+    private static final String SHEETS_SCOPE = "https://www.googleapis.com/auth/spreadsheets";
+
+    private final String spreadsheetId;
+    private final String rootUrl;
+    private final Object lock = new Object();
+    private volatile Sheets sheets;
+    private GoogleCredentials credentials;
+    private HttpTransport transport;
+
+    public GoogleSheetConfig(@Value("${paymentrecord.sheets.spreadsheet-id:1WBGxzx8Tx-z1YcXTJYka9dkaSLlvBrTvoSXQKmn664g}") String spreadsheetId,
+                             @Value("${paymentrecord.sheets.root-url:}") String rootUrl) {
+        this.spreadsheetId = spreadsheetId;
+        this.rootUrl = rootUrl;
+    }
+
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+
+    public Sheets getSheetsService() throws Exception {
+        Sheets current = sheets;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (sheets == null) {
+                sheets = buildSheetsService();
+            }
+            return sheets;
+        }
+    }
+
+    /**
+     * Fetches an access token now if the cached one is missing or close to
+     * expiry. Used by the startup warm-up so the first payment does not pay
+     * for the OAuth round-trip.
+     */
+    public void refreshCredentials() throws Exception {
+        getSheetsService();
+        if (credentials != null) {
+            credentials.refreshIfExpired();
+        }
+    }
+
+    private Sheets buildSheetsService() throws Exception {
 
         // 1️⃣ Render ENV variable read kare
         String base64Cred = System.getenv("GOOGLE_CREDENTIALS");
+        boolean standIn = !rootUrl.isEmpty();
 
-        if (base64Cred == null || base64Cred.isEmpty()) {
+        if ((base64Cred == null || base64Cred.isEmpty()) && !standIn) {
             throw new RuntimeException("GOOGLE_CREDENTIALS not set in Render");
         }
 
-        // 2️⃣ Base64 decode
-        byte[] decoded = Base64.getDecoder().decode(base64Cred);
+        if (base64Cred != null && !base64Cred.isEmpty()) {
+            // 2️⃣ Base64 decode
+            byte[] decoded = Base64.getDecoder().decode(base64Cred);
 
-        // 3️⃣ JSON stream banave (memory ma)
-        ByteArrayInputStream stream = new ByteArrayInputStream(decoded);
+            // 3️⃣ Google credential object (token cached + refreshed by the library)
+            credentials = GoogleCredentials
+                    .fromStream(new ByteArrayInputStream(decoded))
+                    .createScoped(Collections.singleton(SHEETS_SCOPE));
+        }
 
-        // 4️⃣ Google credential object
-        GoogleCredentials credentials = GoogleCredentials
-                .fromStream(stream)
-                .createScoped(Collections.singleton(
-                        "https://www.googleapis.com/auth/spreadsheets"
-                ));
+        // 4️⃣ Shared, pooled transport (keep-alive connections)
+        transport = GoogleApacheHttpTransport.newTrustedTransport();
 
-        // 5️⃣ Sheets service return kare
-        return new Sheets.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(),
+        // 5️⃣ Sheets service
+        Sheets.Builder builder = new Sheets.Builder(
+                transport,
                 GsonFactory.getDefaultInstance(),
-                new HttpCredentialsAdapter(credentials)
+                credentials != null ? new HttpCredentialsAdapter(credentials) : null
         )
-                .setApplicationName("Payment Dashboard")
-                .build();
+                .setApplicationName(APPLICATION_NAME);
+        if (standIn) {
+            builder.setRootUrl(rootUrl.endsWith("/") ? rootUrl : rootUrl + "/");
+        }
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        synchronized (lock) {
+            if (transport != null) {
+                transport.shutdown();
+            }
+        }
     }
 }
@@ -1,26 +1,170 @@
 package com.paymentrecord.controller;
 
+import com.paymentrecord.dto.BulkImportResponse;
+import com.paymentrecord.dto.PayerAnalyticsResponse;
+import com.paymentrecord.dto.PayerEstimateResponse;
+import com.paymentrecord.dto.PaymentPageResponse;
+import com.paymentrecord.dto.PaymentReportResponse;
 import com.paymentrecord.dto.PaymentRequest;
-import com.paymentrecord.service.GoogleSheetService;
+import com.paymentrecord.dto.PaymentStatusResponse;
+import com.paymentrecord.service.PayerSketches;
+import com.paymentrecord.service.PaymentBulkImporter;
+import com.paymentrecord.service.PaymentExporter;
+import com.paymentrecord.service.PaymentIndex;
+import com.paymentrecord.service.PaymentRollups;
+import com.paymentrecord.service.PaymentStatusTracker;
+import com.paymentrecord.service.SheetProjector;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
 
 @RestController
 @RequestMapping("/payment")
 public class PaymentController {
 
-    private final GoogleSheetService service;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_TOP_PAYERS = 100;
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final SheetProjector projector;
+    private final PaymentBulkImporter bulkImporter;
+    private final PaymentStatusTracker statusTracker;
+    private final PaymentIndex paymentIndex;
+    private final PaymentRollups rollups;
+    private final PaymentExporter exporter;
+    private final PayerSketches payerSketches;
 
-    public PaymentController(GoogleSheetService service){
-        this.service = service;
+    public PaymentController(SheetProjector projector, PaymentBulkImporter bulkImporter,
+                             PaymentStatusTracker statusTracker, PaymentIndex paymentIndex,
+                             PaymentRollups rollups, PaymentExporter exporter, PayerSketches payerSketches){
+        this.projector = projector;
+        this.bulkImporter = bulkImporter;
+        this.statusTracker = statusTracker;
+        this.paymentIndex = paymentIndex;
+        this.rollups = rollups;
+        this.exporter = exporter;
+        this.payerSketches = payerSketches;
     }
 
+    // Acknowledged once the payment is in the ledger; the sheet write follows
     @PostMapping("/save")
-    public String save(@RequestBody PaymentRequest request) throws Exception {
-        service.savePayment(request);
+    public String save(@RequestBody PaymentRequest request,
+                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws IOException {
+        projector.submit(withKey(request, idempotencyKey));
         return "Payment Stored Successfully";
     }
 
+    // Accepts immediately; poll /payment/status/{paymentId} for the outcome
+    @PostMapping(value = "/save", params = "async=true")
+    public ResponseEntity<PaymentStatusResponse> saveAsync(@RequestBody PaymentRequest request,
+                                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws IOException {
+        PaymentStatusResponse status = statusTracker.track(projector.submit(withKey(request, idempotencyKey)));
+        return ResponseEntity.accepted()
+                .location(URI.create("/payment/status/" + status.getPaymentId()))
+                .body(status);
+    }
+
+    @GetMapping("/status/{paymentId}")
+    public ResponseEntity<PaymentStatusResponse> status(@PathVariable String paymentId) {
+        PaymentStatusResponse status = statusTracker.get(paymentId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    // Re-renders one month (yyyy-MM) or every month sheet from the ledger
+    @PostMapping("/rebuild")
+    public String rebuild(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                          @RequestParam(defaultValue = "false") boolean force) throws Exception {
+        return "Rebuilt " + projector.rebuild(month, force) + " payments";
+    }
+
+    // Served from the in-memory index; every filter is optional and dates are inclusive
+    @GetMapping("/search")
+    public PaymentPageResponse search(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(required = false) String userName,
+                                      @RequestParam(required = false) String upiId,
+                                      @RequestParam(required = false) String channelType,
+                                      @RequestParam(required = false) String status,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "50") int size) {
+        PaymentIndex.Query query = new PaymentIndex.Query(from, to, userName, upiId, channelType, status);
+        return paymentIndex.query(query, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    // Counts and totals per day or month, channel type and status, from the in-memory rollups
+    @GetMapping("/report")
+    public ResponseEntity<PaymentReportResponse> report(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(defaultValue = "day") String granularity) {
+        if (!granularity.equals("day") && !granularity.equals("month")) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollups.report(from, to, granularity.equals("month")));
+    }
+
+    // Top payers (all time) and distinct payers per day and month in the range, from fixed-size sketches
+    @GetMapping("/analytics")
+    public PayerAnalyticsResponse analytics(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                            @RequestParam(defaultValue = "10") int top) {
+        return payerSketches.report(from, to, Math.min(Math.max(top, 1), MAX_TOP_PAYERS), paymentIndex.isComplete());
+    }
+
+    // Estimated payment count and amount of one UPI ID
+    @GetMapping("/analytics/payer")
+    public PayerEstimateResponse payer(@RequestParam String upiId) {
+        return payerSketches.estimate(upiId);
+    }
+
+    // Streams a date range (inclusive) as CSV or NDJSON; the CSV can be posted back to /payment/bulk
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        if (to.isBefore(from) || (!format.equals("csv") && !format.equals("ndjson"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        MediaType contentType = format.equals("csv") ? TEXT_CSV : MediaType.APPLICATION_NDJSON;
+        String fileName = "payments-" + from + "-to-" + to + "." + format;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(out -> exporter.export(from, to, contentType, out));
+    }
+
+    // Streams a JSON array, NDJSON or CSV body; see PaymentStreamReader for the formats
+    @PostMapping(value = "/bulk", consumes = {
+            MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public BulkImportResponse bulk(InputStream body,
+                                   @RequestHeader("Content-Type") MediaType contentType) throws Exception {
+        return bulkImporter.importPayments(body, contentType);
+    }
+
+    // The header, if sent, wins over an idempotencyKey field in the body
+    private static PaymentRequest withKey(PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        return request;
+    }
+
 }
@@ -0,0 +1,37 @@
+package com.paymentrecord.dto;
+
+import java.util.List;
+
+/**
+ * Result of a bulk upload: counts plus one entry per record, in input order.
+ */
+public class BulkImportResponse {
+
+    private final int accepted;
+    private final int rejected;
+    private final int duplicates;
+    private final List<BulkRecordResult> results;
+
+    public BulkImportResponse(int accepted, int rejected, int duplicates, List<BulkRecordResult> results) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.duplicates = duplicates;
+        this.results = results;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public List<BulkRecordResult> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,53 @@
+package com.paymentrecord.dto;
+
+/**
+ * Outcome of one record of a bulk upload.
+ */
+public class BulkRecordResult {
+
+    public static final String ACCEPTED = "accepted";
+    public static final String REJECTED = "rejected";
+    public static final String DUPLICATE = "duplicate";
+
+    private final int index;
+    private final String status;
+    private final Integer row;
+    private final String error;
+
+    private BulkRecordResult(int index, String status, Integer row, String error) {
+        this.index = index;
+        this.status = status;
+        this.row = row;
+        this.error = error;
+    }
+
+    // Row is null when the record is recorded but its sheet write was deferred
+    public static BulkRecordResult accepted(int index, Integer row) {
+        return new BulkRecordResult(index, ACCEPTED, row, null);
+    }
+
+    public static BulkRecordResult rejected(int index, String error) {
+        return new BulkRecordResult(index, REJECTED, null, error);
+    }
+
+    // Row is the original's, when still known
+    public static BulkRecordResult duplicate(int index, Integer row) {
+        return new BulkRecordResult(index, DUPLICATE, row, null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,104 @@
+package com.paymentrecord.dto;
+
+import java.util.List;
+
+/**
+ * Payer analytics from fixed-size streaming sketches: the top UPI IDs by
+ * amount and by payment count and the top user names by count (all time,
+ * each with its maximum overcount), and estimated distinct payers per day
+ * and month. {@code complete} is false while the index is still loading
+ * existing sheets.
+ */
+public class PayerAnalyticsResponse {
+
+    private final boolean complete;
+    private final List<TopPayer> topUpiIdsByAmount;
+    private final List<TopPayer> topUpiIdsByCount;
+    private final List<TopPayer> topUserNamesByCount;
+    private final List<DistinctPayers> distinctPayersByDay;
+    private final List<DistinctPayers> distinctPayersByMonth;
+
+    public PayerAnalyticsResponse(boolean complete, List<TopPayer> topUpiIdsByAmount,
+                                  List<TopPayer> topUpiIdsByCount, List<TopPayer> topUserNamesByCount,
+                                  List<DistinctPayers> distinctPayersByDay,
+                                  List<DistinctPayers> distinctPayersByMonth) {
+        this.complete = complete;
+        this.topUpiIdsByAmount = topUpiIdsByAmount;
+        this.topUpiIdsByCount = topUpiIdsByCount;
+        this.topUserNamesByCount = topUserNamesByCount;
+        this.distinctPayersByDay = distinctPayersByDay;
+        this.distinctPayersByMonth = distinctPayersByMonth;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<TopPayer> getTopUpiIdsByAmount() {
+        return topUpiIdsByAmount;
+    }
+
+    public List<TopPayer> getTopUpiIdsByCount() {
+        return topUpiIdsByCount;
+    }
+
+    public List<TopPayer> getTopUserNamesByCount() {
+        return topUserNamesByCount;
+    }
+
+    public List<DistinctPayers> getDistinctPayersByDay() {
+        return distinctPayersByDay;
+    }
+
+    public List<DistinctPayers> getDistinctPayersByMonth() {
+        return distinctPayersByMonth;
+    }
+
+    /**
+     * One heavy hitter. {@code value} is a payment count or an amount in
+     * rupees and may be overcounted by at most {@code maxError}.
+     */
+    public static class TopPayer {
+
+        private final String payer;
+        private final double value;
+        private final double maxError;
+
+        public TopPayer(String payer, double value, double maxError) {
+            this.payer = payer;
+            this.value = value;
+            this.maxError = maxError;
+        }
+
+        public String getPayer() {
+            return payer;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public double getMaxError() {
+            return maxError;
+        }
+    }
+
+    public static class DistinctPayers {
+
+        private final String period;
+        private final long estimate;
+
+        public DistinctPayers(String period, long estimate) {
+            this.period = period;
+            this.estimate = estimate;
+        }
+
+        public String getPeriod() {
+            return period;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+    }
+}
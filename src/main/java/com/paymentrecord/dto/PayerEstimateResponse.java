@@ -0,0 +1,31 @@
+package com.paymentrecord.dto;
+
+/**
+ * Estimated payment count and amount of one UPI ID from the count-min
+ * sketches. Estimates never undercount; they may overcount by a small
+ * share of all payments.
+ */
+public class PayerEstimateResponse {
+
+    private final String upiId;
+    private final long count;
+    private final double amount;
+
+    public PayerEstimateResponse(String upiId, long count, double amount) {
+        this.upiId = upiId;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    public String getUpiId() {
+        return upiId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,45 @@
+package com.paymentrecord.dto;
+
+import java.util.List;
+
+/**
+ * One page of query results. {@code complete} is false while the index is
+ * still loading existing sheets, so older payments may be missing.
+ */
+public class PaymentPageResponse {
+
+    private final int page;
+    private final int size;
+    private final int total;
+    private final boolean complete;
+    private final List<PaymentRecordResponse> payments;
+
+    public PaymentPageResponse(int page, int size, int total, boolean complete,
+                               List<PaymentRecordResponse> payments) {
+        this.page = page;
+        this.size = size;
+        this.total = total;
+        this.complete = complete;
+        this.payments = payments;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<PaymentRecordResponse> getPayments() {
+        return payments;
+    }
+}
@@ -0,0 +1,63 @@
+package com.paymentrecord.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One stored payment as returned by the query API, with where it lives in
+ * the spreadsheet.
+ */
+public class PaymentRecordResponse {
+
+    private final LocalDate date;
+    private final String channelType;
+    private final String userName;
+    private final String upiId;
+    private final Double amount;
+    private final String status;
+    private final String sheet;
+    private final int row;
+
+    public PaymentRecordResponse(LocalDate date, String channelType, String userName, String upiId,
+                                 Double amount, String status, String sheet, int row) {
+        this.date = date;
+        this.channelType = channelType;
+        this.userName = userName;
+        this.upiId = upiId;
+        this.amount = amount;
+        this.status = status;
+        this.sheet = sheet;
+        this.row = row;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getChannelType() {
+        return channelType;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getUpiId() {
+        return upiId;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getSheet() {
+        return sheet;
+    }
+
+    public int getRow() {
+        return row;
+    }
+}
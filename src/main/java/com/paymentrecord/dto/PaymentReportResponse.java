@@ -0,0 +1,63 @@
+package com.paymentrecord.dto;
+
+import java.util.List;
+
+/**
+ * Payment counts and totals per period (day or month), channel type and
+ * status, from the in-memory rollups.
+ */
+public class PaymentReportResponse {
+
+    private final String granularity;
+    private final List<Row> rows;
+
+    public PaymentReportResponse(String granularity, List<Row> rows) {
+        this.granularity = granularity;
+        this.rows = rows;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public static class Row {
+
+        private final String period;
+        private final String channelType;
+        private final String status;
+        private final long count;
+        private final double totalAmount;
+
+        public Row(String period, String channelType, String status, long count, double totalAmount) {
+            this.period = period;
+            this.channelType = channelType;
+            this.status = status;
+            this.count = count;
+            this.totalAmount = totalAmount;
+        }
+
+        public String getPeriod() {
+            return period;
+        }
+
+        public String getChannelType() {
+            return channelType;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalAmount() {
+            return totalAmount;
+        }
+    }
+}
@@ -16,6 +16,9 @@ public class PaymentRequest {
     private Double amount;
     private String status;
 
+    // Optional; either one lets a retried save be recognised as a duplicate
+    private String idempotencyKey;
+    private String clientReference;
 
 
     public PaymentRequest(LocalDate date, String channelType, String userName, String upiId, Double amount, String status) {
@@ -74,5 +77,20 @@ public class PaymentRequest {
     public void setStatus(String status) {
         this.status = status;
     }
-}
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getClientReference() {
+        return clientReference;
+    }
+
+    public void setClientReference(String clientReference) {
+        this.clientReference = clientReference;
+    }
+}
@@ -0,0 +1,40 @@
+package com.paymentrecord.dto;
+
+/**
+ * Where an asynchronously saved payment is: QUEUED until its batch is
+ * written, then PERSISTED (with its sheet row) or FAILED.
+ */
+public class PaymentStatusResponse {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String PERSISTED = "PERSISTED";
+    public static final String FAILED = "FAILED";
+
+    private final String paymentId;
+    private final String status;
+    private final Integer row;
+    private final String error;
+
+    public PaymentStatusResponse(String paymentId, String status, Integer row, String error) {
+        this.paymentId = paymentId;
+        this.status = status;
+        this.row = row;
+        this.error = error;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
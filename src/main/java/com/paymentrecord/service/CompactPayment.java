@@ -0,0 +1,51 @@
+package com.paymentrecord.service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Internal, all-primitive form of one payment row: the date as an epoch
+ * day, the amount in paise and every text field as a {@link PaymentCodes}
+ * code. This is what the index and rollups hold per row.
+ */
+record CompactPayment(int epochDay, long paise, int channel, int status,
+                      int user, int upiId, int sheet, int row) {
+
+    /** Paise of a row whose amount cell is empty. */
+    static final long NO_AMOUNT = Long.MIN_VALUE;
+
+    /** Returned by {@link #parseSheetDate} for text that is not a dd-MM-yyyy date. */
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    boolean hasAmount() {
+        return paise != NO_AMOUNT;
+    }
+
+    /**
+     * Parses a sheet date ({@code dd-MM-yyyy}) straight to an epoch day.
+     */
+    static int parseSheetDate(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(2) != '-' || text.charAt(5) != '-') {
+            return NO_DATE;
+        }
+        int day = digits(text, 0, 2);
+        int month = digits(text, 3, 5);
+        int year = digits(text, 6, 10);
+        if (day < 0 || month < 0 || year < 0) return NO_DATE;
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,123 @@
+package com.paymentrecord.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running daily totals per month, keyed by (month, date).
+ *
+ * Each month is hydrated once from the rows of all its partition sheets;
+ * after that every saved payment updates its date's total and last row in
+ * O(1), so the daily total cell can be written without reading the sheets
+ * again. Totals are kept in paise, so they never pick up floating-point
+ * drift.
+ */
+@Component
+public class DailyTotalsStore {
+
+    private final Map<String, Map<String, DailyTotal>> byMonth = new ConcurrentHashMap<>();
+
+    public boolean isHydrated(String month) {
+        return byMonth.containsKey(month);
+    }
+
+    /**
+     * Builds the totals of a month from the A:H rows (header row included)
+     * of its partition sheets, given in partition order.
+     */
+    public void hydrate(String month, Map<String, List<List<Object>>> rowsBySheet) {
+        Map<String, DailyTotal> totals = new HashMap<>();
+        rowsBySheet.forEach((sheetName, rows) -> {
+            for (int i = 1; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                if (row.isEmpty() || row.get(0) == null || row.get(0).toString().isEmpty()) continue;
+
+                DailyTotal daily = totals.computeIfAbsent(row.get(0).toString(), date -> new DailyTotal());
+                daily.add(row.size() > 4 ? Paise.of(row.get(4)) : 0, sheetName, i + 1);
+            }
+        });
+        byMonth.put(month, totals);
+    }
+
+    /**
+     * Starts an empty store for a month with no rows yet.
+     */
+    public void initialize(String month) {
+        byMonth.put(month, new HashMap<>());
+    }
+
+    /**
+     * Adds one saved payment and returns the date's updated total.
+     */
+    public DailyTotal add(String month, String date, long paise, String sheetName, int row) {
+        Map<String, DailyTotal> totals = byMonth.computeIfAbsent(month, name -> new HashMap<>());
+        DailyTotal daily = totals.computeIfAbsent(date, d -> new DailyTotal());
+        daily.add(paise, sheetName, row);
+        return daily;
+    }
+
+    /**
+     * Moves a date's total by drift found in the sheet and sets its last row
+     * to where the sheet has it now; null when no row of the date is left,
+     * so no total cell is written until the date is saved again.
+     */
+    public DailyTotal correct(String month, String date, long deltaPaise, SheetBlockChecksums.LastRow lastRow) {
+        Map<String, DailyTotal> totals = byMonth.computeIfAbsent(month, name -> new HashMap<>());
+        DailyTotal daily = totals.computeIfAbsent(date, d -> new DailyTotal());
+        daily.totalPaise += deltaPaise;
+        daily.lastSheet = lastRow != null ? lastRow.sheetName() : null;
+        daily.lastRow = lastRow != null ? lastRow.row() : -1;
+        return daily;
+    }
+
+    /**
+     * Months whose totals are held in memory.
+     */
+    public Set<String> months() {
+        return Set.copyOf(byMonth.keySet());
+    }
+
+    /**
+     * Forgets a month so it is hydrated from its sheets again on next use.
+     */
+    public void reset(String month) {
+        byMonth.remove(month);
+    }
+
+    /**
+     * Total amount and last row of one date. Rows arrive in sheet order, so
+     * the latest one is the last row.
+     */
+    public static final class DailyTotal {
+        private long totalPaise;
+        private String lastSheet;
+        private int lastRow = -1;
+
+        void add(long paise, String sheetName, int row) {
+            totalPaise += paise;
+            lastSheet = sheetName;
+            lastRow = row;
+        }
+
+        public long getTotalPaise() {
+            return totalPaise;
+        }
+
+        public double getTotal() {
+            return Paise.toRupees(totalPaise);
+        }
+
+        public String getLastSheet() {
+            return lastSheet;
+        }
+
+        public int getLastRow() {
+            return lastRow;
+        }
+    }
+}
@@ -4,437 +4,603 @@ import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.model.*;
 import com.paymentrecord.config.GoogleSheetConfig;
 import com.paymentrecord.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Service
 public class GoogleSheetService {
 
-    private static final String SPREADSHEET_ID = "1WBGxzx8Tx-z1YcXTJYka9dkaSLlvBrTvoSXQKmn664g";
-    private static final int TOTAL_COLUMNS = 26; // A to Z columns
-    private static final int SUMMARY_START_ROW = 100; // Summary starts at row 100
+    private static final Logger log = LoggerFactory.getLogger(GoogleSheetService.class);
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
 
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
-    public void savePayment(PaymentRequest req) throws Exception {
-        Sheets sheets = GoogleSheetConfig.getSheetsService();
+    private final GoogleSheetConfig sheetConfig;
+    private final String spreadsheetId;
+    private final SheetMetadataCache metadataCache;
+    private final SheetRowCursors rowCursors;
+    private final DailyTotalsStore dailyTotals;
+    private final SummaryIndex summaryIndex;
+    private final SheetsCallExecutor calls;
+    private final SheetsExecutor sheetsExecutor;
+    private final MonthSheetProvisioner provisioner;
+    private final PaymentIndex paymentIndex;
+    private final PaymentMetrics metrics;
+    private final SheetBlockChecksums checksums;
+    private final int indexSheetsPerRead;
+    private final int growRows;
+    private final int lastDataRow;
+
+    // Month writes share the read side; a rebuild, which spans months, takes the write side
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public GoogleSheetService(GoogleSheetConfig sheetConfig, SheetMetadataCache metadataCache,
+                              SheetRowCursors rowCursors, DailyTotalsStore dailyTotals,
+                              SummaryIndex summaryIndex, SheetsCallExecutor calls,
+                              SheetsExecutor sheetsExecutor, MonthSheetProvisioner provisioner,
+                              PaymentIndex paymentIndex, PaymentMetrics metrics,
+                              SheetBlockChecksums checksums,
+                              @Value("${paymentrecord.index.sheets-per-read:6}") int indexSheetsPerRead,
+                              @Value("${paymentrecord.sheets.grow-rows:5000}") int growRows,
+                              @Value("${paymentrecord.sheets.max-rows-per-sheet:50000}") int maxRowsPerSheet) {
+        this.sheetConfig = sheetConfig;
+        this.spreadsheetId = sheetConfig.getSpreadsheetId();
+        this.calls = calls;
+        this.sheetsExecutor = sheetsExecutor;
+        this.provisioner = provisioner;
+        this.paymentIndex = paymentIndex;
+        this.metrics = metrics;
+        this.checksums = checksums;
+        this.indexSheetsPerRead = indexSheetsPerRead;
+        this.growRows = growRows;
+        this.lastDataRow = maxRowsPerSheet + 1; // row 1 is the header
+        this.metadataCache = metadataCache;
+        this.rowCursors = rowCursors;
+        this.dailyTotals = dailyTotals;
+        this.summaryIndex = summaryIndex;
+    }
 
-        // Get current month's sheet name
-        String currentMonthSheet = getOrCreateMonthlySheet(sheets, req.getDate());
+    /**
+     * Builds the client, fetches the first access token and opens a pooled
+     * connection right after startup, so the first payment after a deploy
+     * is not the slow one. Failures are only logged; saves retry lazily.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            sheetConfig.refreshCredentials();
+            // Best effort: no retries on network errors, so startup is never held up
+            calls.executeOnce(sheetConfig.getSheetsService().spreadsheets().get(spreadsheetId)
+                    .setFields("spreadsheetId"));
+        } catch (Exception e) {
+            log.warn("Sheets warm-up skipped: {}", e.getMessage());
+        }
+    }
 
-        // Save payment in current month's sheet
-        savePaymentToSheet(sheets, req, currentMonthSheet);
+    /**
+     * Loads every month sheet into the {@link PaymentIndex} in the background.
+     * Sheets are read in groups, one values.batchGet per group, and the
+     * groups run in parallel on the Sheets executor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPaymentIndex() {
+        sheetsExecutor.submit(() -> metadataCache.all(sheetConfig.getSheetsService(), spreadsheetId))
+                .thenCompose(all -> {
+                    List<String> titles = all.stream()
+                            .map(SheetMetadata::title)
+                            .filter(title -> title.matches(SheetLayout.MONTH_SHEET_PATTERN))
+                            .toList();
+
+                    List<CompletableFuture<Void>> reads = new ArrayList<>();
+                    for (int i = 0; i < titles.size(); i += indexSheetsPerRead) {
+                        List<String> group = titles.subList(i, Math.min(i + indexSheetsPerRead, titles.size()));
+                        reads.add(sheetsExecutor.submit(() -> {
+                            loadIndexGroup(group);
+                            return null;
+                        }));
+                    }
+                    return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]))
+                            .thenApply(done -> titles.size());
+                })
+                .whenComplete((sheetCount, error) -> {
+                    if (error != null) {
+                        log.warn("Payment index not loaded: {}", error.getMessage());
+                        return;
+                    }
+                    paymentIndex.markComplete();
+                    log.info("Payment index loaded {} payments from {} sheets", paymentIndex.size(), sheetCount);
+                });
+    }
 
-        // Update daily total automatically
-        updateDailyTotal(sheets, currentMonthSheet, req.getDate());
+    private void loadIndexGroup(List<String> titles) throws Exception {
+        List<String> ranges = titles.stream().map(title -> SheetLayout.range(title, "A:H")).toList();
+        List<ValueRange> values = calls.execute(sheetConfig.getSheetsService().spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(ranges))
+                .getValueRanges();
+        for (int i = 0; i < titles.size(); i++) {
+            paymentIndex.loadSheet(titles.get(i), valuesOf(values.get(i)));
+        }
     }
 
-    private String getOrCreateMonthlySheet(Sheets sheets, LocalDate date) throws Exception {
-        String sheetName = date.format(DateTimeFormatter.ofPattern("MMM-yyyy"));
+    /**
+     * Saves one payment and returns the sheet row it was written to.
+     */
+    public int savePayment(PaymentRequest req) throws Exception {
+        return saveBatch(Collections.singletonList(req)).get(0);
+    }
 
-        // Get all sheets
-        Spreadsheet spreadsheet = sheets.spreadsheets().get(SPREADSHEET_ID).execute();
-        List<Sheet> existingSheets = spreadsheet.getSheets();
+    /**
+     * Writes a batch of payments, grouped by month, and returns the row
+     * assigned to each payment (in batch order). A month's rows go to its
+     * current partition sheet and continue in the next one once that holds
+     * {@code max-rows-per-sheet} rows; grids grow in chunks ahead of the
+     * rows. Once every touched month is hydrated, a batch costs no reads and
+     * a single values.batchUpdate (rows, daily totals, summary cells), plus a
+     * spreadsheets.batchUpdate whenever a grid grows; formatting comes from
+     * the sheet template.
+     *
+     * Not synchronized per month: each month's batches must come from one
+     * writer at a time, which {@link MonthSheetWriters} guarantees, while
+     * different months may be written in parallel.
+     */
+    public List<Integer> saveBatch(List<PaymentRequest> batch) throws Exception {
+        rebuildLock.readLock().lock();
+        try {
+            return writeBatch(batch);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
 
-        // Check if sheet exists
-        boolean sheetExists = existingSheets.stream()
-                .anyMatch(sheet -> sheet.getProperties().getTitle().equals(sheetName));
+    private List<Integer> writeBatch(List<PaymentRequest> batch) throws Exception {
+        if (batch.isEmpty()) return Collections.emptyList();
 
-        // Create new sheet if doesn't exist OR fix old sheet
-        if (!sheetExists) {
-            createNewMonthSheet(sheets, sheetName, date);
-        } else {
-            // Fix old sheet if it has only 8 columns
-            fixOldSheetGrid(sheets, sheetName);
+        long start = System.nanoTime();
+        int callsBefore = metrics.sheetsCallsOnThread();
+        Sheets sheets = sheetConfig.getSheetsService();
+
+        // Group payments by month, keeping arrival order
+        Map<String, List<PaymentRequest>> byMonth = new LinkedHashMap<>();
+        for (PaymentRequest req : batch) {
+            byMonth.computeIfAbsent(SheetLayout.monthSheetName(req.getDate()), k -> new ArrayList<>()).add(req);
         }
 
-        return sheetName;
-    }
+        // Sheets are provisioned in the background; never create or repair them here
+        List<String> notReady = new ArrayList<>();
+        for (String month : byMonth.keySet()) {
+            if (!provisioner.isReady(sheets, month)) {
+                provisioner.request(month);
+                notReady.add(month);
+            }
+        }
+        requireProvisioned(notReady);
 
-    private void fixOldSheetGrid(Sheets sheets, String sheetName) throws Exception {
-        // Get sheet ID first
-        Integer sheetId = getSheetId(sheets, sheetName);
-        if (sheetId == null) return;
-
-        // Check current grid size
-        Spreadsheet spreadsheet = sheets.spreadsheets().get(SPREADSHEET_ID).execute();
-        Sheet targetSheet = spreadsheet.getSheets().stream()
-                .filter(s -> s.getProperties().getTitle().equals(sheetName))
-                .findFirst()
-                .orElse(null);
-
-        if (targetSheet != null) {
-            GridProperties gridProps = targetSheet.getProperties().getGridProperties();
-
-            // If sheet has only 8 columns, expand it to 26
-            if (gridProps.getColumnCount() != null && gridProps.getColumnCount() < TOTAL_COLUMNS) {
-                List<Request> requests = new ArrayList<>();
-
-                requests.add(new Request().setUpdateSheetProperties(
-                        new UpdateSheetPropertiesRequest()
-                                .setProperties(new SheetProperties()
-                                        .setSheetId(sheetId)
-                                        .setGridProperties(new GridProperties()
-                                                .setRowCount(1000)
-                                                .setColumnCount(TOTAL_COLUMNS)))
-                                .setFields("gridProperties")));
-
-                BatchUpdateSpreadsheetRequest batchUpdate = new BatchUpdateSpreadsheetRequest()
-                        .setRequests(requests);
-                sheets.spreadsheets().batchUpdate(SPREADSHEET_ID, batchUpdate).execute();
-
-                System.out.println("Fixed sheet '" + sheetName + "' grid to " + TOTAL_COLUMNS + " columns");
+        // Hydrate months seen for the first time (one read for all of them)
+        hydrateMonths(sheets, byMonth.keySet());
+
+        // Place every month's rows before reserving any
+        Map<String, List<RowSegment>> plans = new LinkedHashMap<>();
+        for (Map.Entry<String, List<PaymentRequest>> entry : byMonth.entrySet()) {
+            plans.put(entry.getKey(), planRows(sheets, entry.getKey(), entry.getValue().size(), notReady));
+        }
+        requireProvisioned(notReady);
+
+        SheetWriteBatch writes = new SheetWriteBatch();
+        List<SheetMetadata> grown = new ArrayList<>();
+        Map<RowSegment, List<List<Object>>> written = new LinkedHashMap<>();
+        for (Map.Entry<String, List<PaymentRequest>> entry : byMonth.entrySet()) {
+            List<PaymentRequest> payments = entry.getValue();
+            for (RowSegment segment : plans.get(entry.getKey())) {
+                // Reserve rows locally - no read of column A
+                rowCursors.allocate(sheets, spreadsheetId, segment.sheetName(), segment.size());
+
+                SheetMetadata resized = growGrid(sheets, writes, segment);
+                if (resized != null) grown.add(resized);
+
+                // Save payments in the partition sheet
+                written.put(segment, savePaymentsToSheet(writes, payments.subList(segment.from(), segment.to()),
+                        segment.sheetName(), segment.firstRow()));
+                checksums.touch(segment.sheetName(), segment.firstRow(), segment.firstRow() + segment.size() - 1);
             }
 
-            // Initialize summary if not exists
-            initializeSummaryIfNeeded(sheets, sheetName, LocalDate.now());
+            // Update daily totals automatically
+            updateDailyTotals(writes, entry.getKey(), payments, plans.get(entry.getKey()));
         }
-    }
 
-    private void initializeSummaryIfNeeded(Sheets sheets, String sheetName, LocalDate date) throws Exception {
-        // Try to get summary header - if error, it doesn't exist
         try {
-            sheets.spreadsheets().values()
-                    .get(SPREADSHEET_ID, sheetName + "!J" + SUMMARY_START_ROW)
-                    .execute();
+            writes.execute(calls, sheets, spreadsheetId);
         } catch (Exception e) {
-            // Summary doesn't exist, create it
-            initializeSummarySection(sheets, sheetName, date);
+            // Reserved rows, grids and running totals may not match the sheets now; re-seed them
+            for (Map.Entry<String, List<RowSegment>> plan : plans.entrySet()) {
+                plan.getValue().forEach(segment -> rowCursors.reset(segment.sheetName()));
+                checksums.reset(plan.getKey());
+                dailyTotals.reset(plan.getKey());
+                summaryIndex.reset(SheetLayout.summaryName(plan.getKey()));
+            }
+            if (!grown.isEmpty()) metadataCache.invalidate();
+            throw e;
+        }
+        grown.forEach(metadataCache::put);
+        written.forEach((segment, rows) -> checksums.record(segment.sheetName(), segment.firstRow(), rows));
+
+        // Index the rows and map each payment back to its row, in batch order
+        Map<String, Iterator<Integer>> rowsByMonth = new HashMap<>();
+        for (Map.Entry<String, List<PaymentRequest>> entry : byMonth.entrySet()) {
+            List<Integer> monthRows = new ArrayList<>(entry.getValue().size());
+            for (RowSegment segment : plans.get(entry.getKey())) {
+                paymentIndex.addAll(segment.sheetName(), segment.firstRow(),
+                        entry.getValue().subList(segment.from(), segment.to()));
+                for (int i = 0; i < segment.size(); i++) {
+                    monthRows.add(segment.firstRow() + i);
+                }
+            }
+            rowsByMonth.put(entry.getKey(), monthRows.iterator());
+        }
+        List<Integer> rows = new ArrayList<>(batch.size());
+        for (PaymentRequest req : batch) {
+            rows.add(rowsByMonth.get(SheetLayout.monthSheetName(req.getDate())).next());
         }
+        metrics.recordBatch(batch.size(), metrics.sheetsCallsOnThread() - callsBefore, System.nanoTime() - start);
+        return rows;
     }
 
-    private void createNewMonthSheet(Sheets sheets, String sheetName, LocalDate date) throws Exception {
-        List<Request> requests = new ArrayList<>();
+    /**
+     * Rewrites whole months from {@code payments} (in ledger order): clears
+     * the rows of all their partition sheets and their summary dates, then
+     * writes everything again through {@link #saveBatch}. Unless
+     * {@code force} is set, refuses to touch a month holding more rows than
+     * it would get back, since those rows are not in the ledger and would be
+     * lost. Returns each payment's new row. Waits for in-flight month
+     * writes and holds off new ones until it is done.
+     */
+    public List<Integer> rebuild(List<PaymentRequest> payments, boolean force) throws Exception {
+        rebuildLock.writeLock().lock();
+        try {
+            return rebuildMonths(payments, force);
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
 
-        // Create new sheet with 26 columns
-        requests.add(new Request().setAddSheet(new AddSheetRequest()
-                .setProperties(new SheetProperties()
-                        .setTitle(sheetName)
-                        .setGridProperties(new GridProperties()
-                                .setRowCount(1000)
-                                .setColumnCount(TOTAL_COLUMNS)))));
+    private List<Integer> rebuildMonths(List<PaymentRequest> payments, boolean force) throws Exception {
+        if (payments.isEmpty()) return Collections.emptyList();
 
-        // Apply batch update
-        BatchUpdateSpreadsheetRequest batchUpdateRequest = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        sheets.spreadsheets().batchUpdate(SPREADSHEET_ID, batchUpdateRequest).execute();
+        Sheets sheets = sheetConfig.getSheetsService();
+        Map<String, Integer> countByMonth = new LinkedHashMap<>();
+        for (PaymentRequest req : payments) {
+            countByMonth.merge(SheetLayout.monthSheetName(req.getDate()), 1, Integer::sum);
+        }
 
-        // Initialize the new sheet
-        initializeNewSheet(sheets, sheetName, date);
+        // An explicit re-render, so it may wait for the sheets it needs
+        Map<String, List<String>> partitionsByMonth = new LinkedHashMap<>();
+        for (String month : countByMonth.keySet()) {
+            provisioner.ensure(SheetLayout.monthStart(month));
+            partitionsByMonth.put(month, partitionsOf(sheets, month));
+        }
+
+        // Count what is really there; rows may have been added outside this service
+        List<String> columns = new ArrayList<>();
+        partitionsByMonth.values().forEach(partitions ->
+                partitions.forEach(sheetName -> columns.add(SheetLayout.range(sheetName, "A:A"))));
+        List<ValueRange> current = calls.execute(sheets.spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(columns))
+                .getValueRanges();
+
+        SheetWriteBatch writes = new SheetWriteBatch();
+        List<String> clears = new ArrayList<>();
+        int rangeIndex = 0;
+        for (Map.Entry<String, List<String>> entry : partitionsByMonth.entrySet()) {
+            String month = entry.getKey();
+            int existing = 0;
+            for (String sheetName : entry.getValue()) {
+                existing += Math.max(valuesOf(current.get(rangeIndex++)).size() - 1, 0);
+                int rowCount = metadataCache.get(sheets, spreadsheetId, sheetName).rowCount();
+                clears.add(SheetLayout.range(sheetName, "A2:H" + rowCount));
+            }
+            if (!force && existing > countByMonth.get(month)) {
+                throw new RebuildConflictException(month + " has " + existing + " rows but the ledger only "
+                        + countByMonth.get(month) + "; rebuilding would drop rows that are not in the ledger");
+            }
+
+            String summaryName = SheetLayout.summaryName(month);
+            clears.add(SheetLayout.range(summaryName, "A" + SheetLayout.SUMMARY_FIRST_DATE_ROW + ":B"));
+            writes.addValues(SheetLayout.range(summaryName,
+                            "A" + SheetLayout.SUMMARY_GRAND_TOTAL_ROW + ":B" + SheetLayout.SUMMARY_GRAND_TOTAL_ROW),
+                    Collections.singletonList(Arrays.asList(SummaryIndex.GRAND_TOTAL_LABEL, SheetLayout.GRAND_TOTAL_FORMULA)));
+        }
+
+        calls.execute(sheets.spreadsheets().values()
+                .batchClear(spreadsheetId, new BatchClearValuesRequest().setRanges(clears)));
+        writes.execute(calls, sheets, spreadsheetId);
+
+        // The sheets are empty now, so every in-memory view starts over
+        List<String> cleared = new ArrayList<>();
+        partitionsByMonth.values().forEach(cleared::addAll);
+        paymentIndex.clearSheets(cleared);
+        for (Map.Entry<String, List<String>> entry : partitionsByMonth.entrySet()) {
+            entry.getValue().forEach(rowCursors::initialize);
+            checksums.baseline(entry.getKey(), Collections.emptyMap());
+            dailyTotals.initialize(entry.getKey());
+            summaryIndex.initialize(SheetLayout.summaryName(entry.getKey()), SheetLayout.SUMMARY_FIRST_DATE_ROW);
+        }
+
+        List<Integer> rows = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i += REBUILD_CHUNK_SIZE) {
+            rows.addAll(saveBatch(payments.subList(i, Math.min(i + REBUILD_CHUNK_SIZE, payments.size()))));
+        }
+        return rows;
     }
 
-    private void initializeNewSheet(Sheets sheets, String sheetName, LocalDate date) throws Exception {
-        // Headers for main data (A-H)
-        List<List<Object>> headers = Arrays.asList(
-                Arrays.asList("Date", "Channel Type", "User Name", "UPI ID",
-                        "Amount (₹)", "Status", "Daily Total", "Remarks")
-        );
+    /**
+     * Applies drift the {@link SheetReconciler} found in a month's sheets:
+     * moves the affected dates' running totals and rewrites only their
+     * daily total cells and summary rows, in one values.batchUpdate. A month
+     * not held in memory is skipped; hydrating it reads the edited sheet.
+     * Like {@link #saveBatch}, runs as the month's single writer.
+     */
+    public void correctDailyTotals(String month, List<SheetBlockChecksums.Correction> corrections)
+            throws Exception {
+        rebuildLock.readLock().lock();
+        try {
+            applyCorrections(month, corrections);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
 
-        ValueRange headerBody = new ValueRange().setValues(headers);
-        sheets.spreadsheets().values()
-                .update(SPREADSHEET_ID, sheetName + "!A1:H1", headerBody)
-                .setValueInputOption("RAW")
-                .execute();
+    private void applyCorrections(String month, List<SheetBlockChecksums.Correction> corrections) throws Exception {
+        String summaryName = SheetLayout.summaryName(month);
+        if (corrections.isEmpty() || !dailyTotals.isHydrated(month) || !summaryIndex.isHydrated(summaryName)) return;
 
-        // Apply formatting
-        applyMainHeaderFormatting(sheets, sheetName);
+        // The date's last row may have moved or gone with the edit, so look it up again
+        Map<String, DailyTotalsStore.DailyTotal> touched = new LinkedHashMap<>();
+        for (SheetBlockChecksums.Correction correction : corrections) {
+            touched.put(correction.date(), dailyTotals.correct(month, correction.date(), correction.deltaPaise(),
+                    checksums.lastRowOf(month, correction.date())));
+        }
 
-        // Initialize summary section
-        initializeSummarySection(sheets, sheetName, date);
+        SheetWriteBatch writes = new SheetWriteBatch();
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, DailyTotalsStore.DailyTotal> entry : touched.entrySet()) {
+            DailyTotalsStore.DailyTotal daily = entry.getValue();
+            if (daily.getTotalPaise() > 0 && daily.getLastRow() > 0) {
+                writes.addValues(SheetLayout.range(daily.getLastSheet(), "G" + daily.getLastRow()),
+                        Collections.singletonList(Collections.singletonList(daily.getTotal())));
+            }
+            // A date whose rows were all removed keeps its summary row, now at zero
+            if (daily.getTotalPaise() != 0 || summaryIndex.rowOf(summaryName, entry.getKey()) > 0) {
+                totals.put(entry.getKey(), daily.getTotal());
+            }
+        }
+        updateSummaryWithDates(writes, summaryName, totals);
+        if (writes.isEmpty()) return;
+
+        try {
+            writes.execute(calls, sheetConfig.getSheetsService(), spreadsheetId);
+        } catch (Exception e) {
+            dailyTotals.reset(month);
+            summaryIndex.reset(summaryName);
+            throw e;
+        }
+        log.info("Corrected {} daily totals of {} after edits in the sheet", touched.size(), month);
     }
 
-    private void applyMainHeaderFormatting(Sheets sheets, String sheetName) throws Exception {
-        Integer sheetId = getSheetId(sheets, sheetName);
-        if (sheetId == null) return;
-
-        List<Request> requests = new ArrayList<>();
-
-        // Header formatting for A-H
-        requests.add(new Request()
-                .setRepeatCell(new RepeatCellRequest()
-                        .setRange(new GridRange()
-                                .setSheetId(sheetId)
-                                .setStartRowIndex(0)
-                                .setEndRowIndex(1)
-                                .setStartColumnIndex(0)
-                                .setEndColumnIndex(8))
-                        .setCell(new CellData()
-                                .setUserEnteredFormat(new CellFormat()
-                                        .setBackgroundColor(new Color().setRed(0.2f).setGreen(0.4f).setBlue(0.6f))
-                                        .setTextFormat(new TextFormat()
-                                                .setBold(true)
-                                                .setFontSize(12)
-                                                .setForegroundColor(new Color().setRed(1f).setGreen(1f).setBlue(1f)))
-                                        .setHorizontalAlignment("CENTER")))
-                        .setFields("userEnteredFormat")));
-
-        // Freeze header row
-        requests.add(new Request()
-                .setUpdateSheetProperties(new UpdateSheetPropertiesRequest()
-                        .setProperties(new SheetProperties()
-                                .setSheetId(sheetId)
-                                .setGridProperties(new GridProperties()
-                                        .setFrozenRowCount(1)))
-                        .setFields("gridProperties.frozenRowCount")));
-
-        BatchUpdateSpreadsheetRequest batchUpdateRequest = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        sheets.spreadsheets().batchUpdate(SPREADSHEET_ID, batchUpdateRequest).execute();
+    private static void requireProvisioned(List<String> notReady) {
+        if (!notReady.isEmpty()) {
+            throw new SheetNotReadyException("Sheets " + notReady + " are not provisioned yet");
+        }
     }
 
-    private void initializeSummarySection(Sheets sheets, String sheetName, LocalDate date) throws Exception {
-        // Monthly summary data - placed at row 100
-        List<List<Object>> summaryData = Arrays.asList(
-                Arrays.asList("Monthly Summary for " + date.format(DateTimeFormatter.ofPattern("MMMM yyyy")), ""),
-                Arrays.asList("Date", "Total Amount (₹)"),
-                Arrays.asList("", ""),
-                Arrays.asList("Grand Total:", "=SUM(K" + (SUMMARY_START_ROW + 3) + ":K999)")
-        );
+    /**
+     * Loads the rows of every partition sheet (daily totals, row cursors,
+     * block checksums) and the summary index of each month not yet held in memory, using a
+     * single values.batchGet.
+     */
+    private void hydrateMonths(Sheets sheets, Collection<String> months) throws Exception {
+        List<String> ranges = new ArrayList<>();
+        Map<String, List<String>> pending = new LinkedHashMap<>();
+        for (String month : months) {
+            if (dailyTotals.isHydrated(month) && summaryIndex.isHydrated(SheetLayout.summaryName(month))) continue;
+            List<String> partitions = partitionsOf(sheets, month);
+            pending.put(month, partitions);
+            partitions.forEach(sheetName -> ranges.add(SheetLayout.range(sheetName, "A:H")));
+            ranges.add(SheetLayout.range(SheetLayout.summaryName(month), "A" + SheetLayout.SUMMARY_GRAND_TOTAL_ROW + ":B"));
+        }
+        if (pending.isEmpty()) return;
+
+        List<ValueRange> current = calls.execute(sheets.spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(ranges))
+                .getValueRanges();
+
+        int rangeIndex = 0;
+        for (Map.Entry<String, List<String>> entry : pending.entrySet()) {
+            Map<String, List<List<Object>>> rowsBySheet = new LinkedHashMap<>();
+            for (String sheetName : entry.getValue()) {
+                List<List<Object>> existingRows = valuesOf(current.get(rangeIndex++));
+                rowsBySheet.put(sheetName, existingRows);
+                rowCursors.seed(sheetName, existingRows.size() + 1);
+            }
+            dailyTotals.hydrate(entry.getKey(), rowsBySheet);
+            checksums.baseline(entry.getKey(), rowsBySheet);
+            summaryIndex.hydrate(SheetLayout.summaryName(entry.getKey()), SheetLayout.SUMMARY_GRAND_TOTAL_ROW,
+                    valuesOf(current.get(rangeIndex++)));
+        }
+    }
 
-        ValueRange summaryBody = new ValueRange().setValues(summaryData);
-        String summaryRange = sheetName + "!J" + SUMMARY_START_ROW + ":K" + (SUMMARY_START_ROW + 4);
+    /**
+     * Every existing partition sheet of a month, in order.
+     */
+    List<String> partitionsOf(Sheets sheets, String month) throws Exception {
+        List<String> partitions = new ArrayList<>();
+        for (int partition = 1; ; partition++) {
+            String sheetName = SheetLayout.partitionName(month, partition);
+            if (metadataCache.get(sheets, spreadsheetId, sheetName) == null) return partitions;
+            partitions.add(sheetName);
+        }
+    }
+
+    /**
+     * Places a month's next {@code count} rows: the rest of its current
+     * partition sheet, then the following ones. The next partition is asked
+     * for once fewer than a grid chunk of rows is left in the current one;
+     * when rows would need a partition that is not provisioned yet, its name
+     * is added to {@code notReady}.
+     */
+    private List<RowSegment> planRows(Sheets sheets, String month, int count, List<String> notReady) throws Exception {
+        List<RowSegment> plan = new ArrayList<>();
+        int placed = 0;
+        for (int partition = 1; placed < count; partition++) {
+            String sheetName = SheetLayout.partitionName(month, partition);
+            if (partition > 1 && !provisioner.isReady(sheets, sheetName)) {
+                provisioner.request(sheetName);
+                notReady.add(sheetName);
+                break;
+            }
 
-        sheets.spreadsheets().values()
-                .update(SPREADSHEET_ID, summaryRange, summaryBody)
-                .setValueInputOption("USER_ENTERED")
-                .execute();
+            int firstRow = rowCursors.peek(sheets, spreadsheetId, sheetName);
+            int take = Math.min(count - placed, lastDataRow - firstRow + 1);
+            if (take <= 0) continue;
+            plan.add(new RowSegment(sheetName, firstRow, placed, placed + take));
+            placed += take;
 
-        // Apply summary formatting
-        applySummaryFormatting(sheets, sheetName);
+            String next = SheetLayout.partitionName(month, partition + 1);
+            if (lastDataRow - (firstRow + take - 1) < growRows
+                    && metadataCache.get(sheets, spreadsheetId, next) == null) {
+                provisioner.request(next);
+            }
+        }
+        return plan;
     }
 
-    private void applySummaryFormatting(Sheets sheets, String sheetName) throws Exception {
-        Integer sheetId = getSheetId(sheets, sheetName);
-        if (sheetId == null) return;
-
-        List<Request> requests = new ArrayList<>();
-
-        // Summary header formatting
-        requests.add(new Request()
-                .setRepeatCell(new RepeatCellRequest()
-                        .setRange(new GridRange()
-                                .setSheetId(sheetId)
-                                .setStartRowIndex(SUMMARY_START_ROW - 1)
-                                .setEndRowIndex(SUMMARY_START_ROW)
-                                .setStartColumnIndex(9) // Column J
-                                .setEndColumnIndex(11)) // Column K
-                        .setCell(new CellData()
-                                .setUserEnteredFormat(new CellFormat()
-                                        .setBackgroundColor(new Color().setRed(0.8f).setGreen(0.4f).setBlue(0.2f))
-                                        .setTextFormat(new TextFormat()
-                                                .setBold(true)
-                                                .setFontSize(14)
-                                                .setForegroundColor(new Color().setRed(1f).setGreen(1f).setBlue(1f)))
-                                        .setHorizontalAlignment("CENTER")))
-                        .setFields("userEnteredFormat")));
-
-        // Grand Total formatting
-        requests.add(new Request()
-                .setRepeatCell(new RepeatCellRequest()
-                        .setRange(new GridRange()
-                                .setSheetId(sheetId)
-                                .setStartRowIndex(SUMMARY_START_ROW + 3)
-                                .setEndRowIndex(SUMMARY_START_ROW + 4)
-                                .setStartColumnIndex(9)
-                                .setEndColumnIndex(11))
-                        .setCell(new CellData()
-                                .setUserEnteredFormat(new CellFormat()
-                                        .setBackgroundColor(new Color().setRed(1f).setGreen(0.9f).setBlue(0f))
-                                        .setTextFormat(new TextFormat().setBold(true).setFontSize(12))
-                                        .setHorizontalAlignment("RIGHT")
-                                        .setNumberFormat(new NumberFormat()
-                                                .setType("CURRENCY")
-                                                .setPattern("\"₹\"#,##0.00"))))
-                        .setFields("userEnteredFormat")));
-
-        BatchUpdateSpreadsheetRequest batchUpdateRequest = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        sheets.spreadsheets().batchUpdate(SPREADSHEET_ID, batchUpdateRequest).execute();
+    /**
+     * Adds rows to a partition's grid once the segment comes within a
+     * quarter of a chunk of its end, {@code grow-rows} at a time and never
+     * past {@code max-rows-per-sheet}. Returns the resized metadata, or null
+     * if the grid has room.
+     */
+    private SheetMetadata growGrid(Sheets sheets, SheetWriteBatch writes, RowSegment segment) throws Exception {
+        SheetMetadata metadata = metadataCache.get(sheets, spreadsheetId, segment.sheetName());
+        int lastRow = segment.firstRow() + segment.size() - 1;
+        int wanted = Math.min(lastRow + growRows / 4, lastDataRow);
+        if (wanted <= metadata.rowCount()) return null;
+
+        int rowCount = Math.min(Math.max(metadata.rowCount() + growRows, wanted), lastDataRow);
+        int added = rowCount - metadata.rowCount();
+        if (segment.firstRow() <= metadata.rowCount()) {
+            writes.addRequest(SheetTemplate.extend(metadata.sheetId(), metadata.rowCount(), added));
+        } else {
+            // A completely full grid has no empty last row to insert above
+            writes.addRequest(new Request().setAppendDimension(new AppendDimensionRequest()
+                    .setSheetId(metadata.sheetId())
+                    .setDimension("ROWS")
+                    .setLength(added)));
+        }
+        log.info("Growing sheet '{}' to {} rows", segment.sheetName(), rowCount);
+        return metadata.withGrid(rowCount, metadata.columnCount());
     }
 
-    private void savePaymentToSheet(Sheets sheets, PaymentRequest req, String sheetName) throws Exception {
-        // Find next empty row
-        ValueRange response = sheets.spreadsheets().values()
-                .get(SPREADSHEET_ID, sheetName + "!A:A")
-                .execute();
+    private List<List<Object>> savePaymentsToSheet(SheetWriteBatch writes, List<PaymentRequest> payments,
+                                                   String sheetName, int nextRow) {
+        // Formatting comes from the sheet template, so rows are plain value writes
+        List<List<Object>> rows = new ArrayList<>();
+        for (PaymentRequest req : payments) {
+            rows.add(toRow(req));
+        }
 
-        int nextRow = (response.getValues() != null) ? response.getValues().size() + 1 : 2;
+        // Insert rows
+        int lastRow = nextRow + rows.size() - 1;
+        writes.addValues(SheetLayout.range(sheetName, "A" + nextRow + ":H" + lastRow), rows);
+        return rows;
+    }
 
-        // Prepare row data
+    private List<Object> toRow(PaymentRequest req) {
         String formattedDate = req.getDate().format(dateFormatter);
-        List<Object> row = Arrays.asList(
+        return Arrays.asList(
                 formattedDate,
-                req.getChannelType(),
-                req.getUserName(),
-                req.getUpiId(),
-                req.getAmount(),
-                req.getStatus(),
+                orEmpty(req.getChannelType()),
+                orEmpty(req.getUserName()),
+                orEmpty(req.getUpiId()),
+                orEmpty(req.getAmount()),
+                orEmpty(req.getStatus()),
                 "", // Daily Total (will be auto-calculated)
                 ""  // Remarks
         );
-
-        ValueRange body = new ValueRange().setValues(Collections.singletonList(row));
-
-        // Insert row
-        sheets.spreadsheets().values()
-                .update(SPREADSHEET_ID, sheetName + "!A" + nextRow + ":H" + nextRow, body)
-                .setValueInputOption("USER_ENTERED")
-                .execute();
-
-        // Apply row formatting
-        applyRowFormatting(sheets, sheetName, nextRow);
     }
 
-    private void applyRowFormatting(Sheets sheets, String sheetName, int row) throws Exception {
-        Integer sheetId = getSheetId(sheets, sheetName);
-        if (sheetId == null) return;
-
-        List<Request> requests = new ArrayList<>();
-
-        // Alternate row coloring
-        Color rowColor = (row % 2 == 0) ?
-                new Color().setRed(0.95f).setGreen(0.95f).setBlue(0.95f) :
-                new Color().setRed(1f).setGreen(1f).setBlue(1f);
-
-        requests.add(new Request()
-                .setRepeatCell(new RepeatCellRequest()
-                        .setRange(new GridRange()
-                                .setSheetId(sheetId)
-                                .setStartRowIndex(row - 1)
-                                .setEndRowIndex(row)
-                                .setStartColumnIndex(0)
-                                .setEndColumnIndex(8))
-                        .setCell(new CellData()
-                                .setUserEnteredFormat(new CellFormat()
-                                        .setBackgroundColor(rowColor)
-                                        .setBorders(new Borders()
-                                                .setBottom(new Border()
-                                                        .setStyle("SOLID")
-                                                        .setColor(new Color().setRed(0.8f).setGreen(0.8f).setBlue(0.8f))))))
-                        .setFields("userEnteredFormat(backgroundColor,borders)")));
-
-        // Amount column formatting
-        requests.add(new Request()
-                .setRepeatCell(new RepeatCellRequest()
-                        .setRange(new GridRange()
-                                .setSheetId(sheetId)
-                                .setStartRowIndex(row - 1)
-                                .setEndRowIndex(row)
-                                .setStartColumnIndex(4)
-                                .setEndColumnIndex(5))
-                        .setCell(new CellData()
-                                .setUserEnteredFormat(new CellFormat()
-                                        .setNumberFormat(new NumberFormat()
-                                                .setType("CURRENCY")
-                                                .setPattern("\"₹\"#,##0.00"))))
-                        .setFields("userEnteredFormat.numberFormat")));
-
-        BatchUpdateSpreadsheetRequest batchUpdateRequest = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        sheets.spreadsheets().batchUpdate(SPREADSHEET_ID, batchUpdateRequest).execute();
+    // The JSON encoder drops nulls inside lists, which would shift later columns left
+    private static Object orEmpty(Object value) {
+        return value != null ? value : "";
     }
 
-    private void updateDailyTotal(Sheets sheets, String sheetName, LocalDate date) throws Exception {
-        String targetDate = date.format(dateFormatter);
-
-        // Get all rows for this date
-        ValueRange response = sheets.spreadsheets().values()
-                .get(SPREADSHEET_ID, sheetName + "!A:H")
-                .execute();
-
-        List<List<Object>> values = response.getValues();
-        if (values == null || values.size() <= 1) return;
-
-        double dailyTotal = 0;
-        int lastRowForDate = -1;
-
-        // Calculate total for the date
-        for (int i = 1; i < values.size(); i++) {
-            List<Object> row = values.get(i);
-            if (row.size() > 0 && targetDate.equals(row.get(0))) {
-                if (row.size() > 4 && row.get(4) != null && !row.get(4).toString().isEmpty()) {
-                    try {
-                        String amountStr = row.get(4).toString()
-                                .replace("₹", "")
-                                .replace(",", "")
-                                .trim();
-                        dailyTotal += Double.parseDouble(amountStr);
-                    } catch (NumberFormatException e) {
-                        // Ignore
-                    }
-                }
-                lastRowForDate = i + 1;
+    private void updateDailyTotals(SheetWriteBatch writes, String month, List<PaymentRequest> payments,
+                                   List<RowSegment> plan) {
+        // Add the batch to the running totals - O(1) per payment, no sheet read
+        Map<String, DailyTotalsStore.DailyTotal> touched = new LinkedHashMap<>();
+        for (RowSegment segment : plan) {
+            for (int i = segment.from(); i < segment.to(); i++) {
+                PaymentRequest req = payments.get(i);
+                String date = req.getDate().format(dateFormatter);
+                touched.put(date, dailyTotals.add(month, date, Paise.of(req.getAmount()),
+                        segment.sheetName(), segment.firstRow() + i - segment.from()));
             }
         }
 
-        // Update daily total in column G
-        if (lastRowForDate != -1 && dailyTotal > 0) {
-            String dailyTotalCell = sheetName + "!G" + lastRowForDate;
-            ValueRange totalBody = new ValueRange()
-                    .setValues(Collections.singletonList(
-                            Collections.singletonList(dailyTotal)
-                    ));
-
-            sheets.spreadsheets().values()
-                    .update(SPREADSHEET_ID, dailyTotalCell, totalBody)
-                    .setValueInputOption("USER_ENTERED")
-                    .execute();
-
-            // Update summary
-            updateSummaryWithDate(sheets, sheetName, targetDate, dailyTotal);
+        // Update daily total in column G of the date's last row
+        Map<String, Double> changedTotals = new LinkedHashMap<>();
+        for (Map.Entry<String, DailyTotalsStore.DailyTotal> entry : touched.entrySet()) {
+            double dailyTotal = entry.getValue().getTotal();
+            if (entry.getValue().getTotalPaise() > 0) {
+                writes.addValues(SheetLayout.range(entry.getValue().getLastSheet(), "G" + entry.getValue().getLastRow()),
+                        Collections.singletonList(Collections.singletonList(dailyTotal)));
+                changedTotals.put(entry.getKey(), dailyTotal);
+            }
         }
+
+        // Update summary
+        updateSummaryWithDates(writes, SheetLayout.summaryName(month), changedTotals);
     }
 
-    private void updateSummaryWithDate(Sheets sheets, String sheetName, String date, double total) throws Exception {
-        // Get current summary data
-        String summaryRange = sheetName + "!J" + (SUMMARY_START_ROW + 2) + ":K999";
-        ValueRange summaryResponse = sheets.spreadsheets().values()
-                .get(SPREADSHEET_ID, summaryRange)
-                .execute();
-
-        List<List<Object>> summaryData = new ArrayList<>();
-        boolean dateFound = false;
-        int dataRow = SUMMARY_START_ROW + 2;
-
-        if (summaryResponse.getValues() != null) {
-            for (List<Object> row : summaryResponse.getValues()) {
-                if (row.size() > 0 && row.get(0) != null && !row.get(0).toString().isEmpty()) {
-                    if (row.get(0).toString().equals(date)) {
-                        // Update existing entry
-                        summaryData.add(Arrays.asList(date, total));
-                        dateFound = true;
-                    } else {
-                        summaryData.add(row);
-                    }
-                    dataRow++;
-                }
+    private void updateSummaryWithDates(SheetWriteBatch writes, String summaryName, Map<String, Double> totals) {
+        for (Map.Entry<String, Double> total : totals.entrySet()) {
+            int row = summaryIndex.rowOf(summaryName, total.getKey());
+            if (row > 0) {
+                // Existing date: single-cell update
+                writes.addValues(SheetLayout.range(summaryName, "B" + row),
+                        Collections.singletonList(Collections.singletonList(total.getValue())));
+            } else {
+                // New date: single-row append
+                row = summaryIndex.append(summaryName, total.getKey());
+                writes.addValues(SheetLayout.range(summaryName, "A" + row + ":B" + row),
+                        Collections.singletonList(Arrays.asList(total.getKey(), total.getValue())));
             }
         }
+    }
 
-        // Add new date if not found
-        if (!dateFound) {
-            summaryData.add(Arrays.asList(date, total));
-        }
-
-        // Write back summary data
-        if (!summaryData.isEmpty()) {
-            ValueRange updateBody = new ValueRange().setValues(summaryData);
-            sheets.spreadsheets().values()
-                    .update(SPREADSHEET_ID, sheetName + "!J" + (SUMMARY_START_ROW + 2), updateBody)
-                    .setValueInputOption("USER_ENTERED")
-                    .execute();
-        }
+    private static List<List<Object>> valuesOf(ValueRange range) {
+        return (range != null && range.getValues() != null) ? range.getValues() : Collections.emptyList();
     }
 
-    private Integer getSheetId(Sheets sheets, String sheetName) throws Exception {
-        Spreadsheet spreadsheet = sheets.spreadsheets().get(SPREADSHEET_ID).execute();
-        return spreadsheet.getSheets().stream()
-                .filter(sheet -> sheet.getProperties().getTitle().equals(sheetName))
-                .map(sheet -> sheet.getProperties().getSheetId())
-                .findFirst()
-                .orElse(null);
+    /**
+     * Rows {@code firstRow}.. of one partition sheet, holding the payments
+     * {@code from} (inclusive) to {@code to} of a month's batch.
+     */
+    private record RowSegment(String sheetName, int firstRow, int from, int to) {
+        int size() {
+            return to - from;
+        }
     }
 }
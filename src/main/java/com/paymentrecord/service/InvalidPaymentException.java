@@ -0,0 +1,16 @@
+package com.paymentrecord.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for payments that could never be written (e.g. no date), so they
+ * are rejected with a 400 instead of being journaled and retried forever.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPaymentException extends RuntimeException {
+
+    public InvalidPaymentException(String message) {
+        super(message);
+    }
+}
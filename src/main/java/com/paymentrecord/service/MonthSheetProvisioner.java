@@ -0,0 +1,391 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.*;
+import com.paymentrecord.config.GoogleSheetConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates, formats and repairs month sheets off the request path.
+ *
+ * A daily job creates the sheet (and summary tab) of the month
+ * {@code provision-days-ahead} days from now, so the first payment of a
+ * month finds it ready. At startup every existing month sheet is validated
+ * once and repaired if needed: template formatting, and moving a summary
+ * block of the old layout (J/K from row 100) to the month's summary tab.
+ * Saves only check {@link #isReady(Sheets, String)}; a save for a sheet
+ * that is missing or not repaired yet, such as the next partition of a busy
+ * month, asks for it with {@link #request(String)} and is retried by the
+ * projector once it exists.
+ */
+@Component
+public class MonthSheetProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthSheetProvisioner.class);
+
+    private static final int SUMMARY_ROWS = 50;
+    private static final int SUMMARY_COLUMNS = 2;
+
+    private final GoogleSheetConfig sheetConfig;
+    private final String spreadsheetId;
+    private final SheetMetadataCache metadataCache;
+    private final SheetRowCursors rowCursors;
+    private final DailyTotalsStore dailyTotals;
+    private final SummaryIndex summaryIndex;
+    private final SheetsCallExecutor calls;
+    private final SheetsExecutor sheetsExecutor;
+    private final int daysAhead;
+    private final int initialRows;
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+
+    public MonthSheetProvisioner(GoogleSheetConfig sheetConfig, SheetMetadataCache metadataCache,
+                                 SheetRowCursors rowCursors, DailyTotalsStore dailyTotals,
+                                 SummaryIndex summaryIndex, SheetsCallExecutor calls,
+                                 SheetsExecutor sheetsExecutor,
+                                 @Value("${paymentrecord.sheets.provision-days-ahead:7}") int daysAhead,
+                                 @Value("${paymentrecord.sheets.grow-rows:5000}") int growRows,
+                                 @Value("${paymentrecord.sheets.max-rows-per-sheet:50000}") int maxRowsPerSheet) {
+        this.sheetConfig = sheetConfig;
+        this.spreadsheetId = sheetConfig.getSpreadsheetId();
+        this.metadataCache = metadataCache;
+        this.rowCursors = rowCursors;
+        this.dailyTotals = dailyTotals;
+        this.summaryIndex = summaryIndex;
+        this.calls = calls;
+        this.sheetsExecutor = sheetsExecutor;
+        this.daysAhead = daysAhead;
+        this.initialRows = Math.min(growRows, maxRowsPerSheet) + 1;
+    }
+
+    /**
+     * Whether the sheet is provisioned: it has the template, and no summary
+     * block of the old layout is left in it.
+     */
+    static boolean isReady(SheetMetadata metadata) {
+        return metadata != null && metadata.templated() && metadata.summaryInitialized();
+    }
+
+    /**
+     * Whether saves can write to a month's partition sheet; for the first
+     * partition, the month's summary tab must exist too.
+     */
+    public boolean isReady(Sheets sheets, String sheetName) throws Exception {
+        if (!isReady(metadataCache.get(sheets, spreadsheetId, sheetName))) return false;
+        return SheetLayout.partitionOf(sheetName) > 1
+                || metadataCache.get(sheets, spreadsheetId, SheetLayout.summaryName(sheetName)) != null;
+    }
+
+    /**
+     * Validates and repairs every month sheet in the background, then
+     * provisions the months ahead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairAtStartup() {
+        sheetsExecutor.submit(() -> {
+            repairAll();
+            provisionAhead();
+            return null;
+        }).whenComplete((done, error) -> {
+            if (error != null) {
+                log.warn("Month sheet repair at startup failed, sheets are repaired on demand: {}", error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Makes sure the sheets of this month and of the month
+     * {@code provision-days-ahead} days from now exist.
+     */
+    @Scheduled(cron = "${paymentrecord.sheets.provision-cron:0 0 2 * * *}")
+    public void provisionAhead() {
+        LocalDate today = LocalDate.now();
+        for (LocalDate date : new LinkedHashSet<>(List.of(today.withDayOfMonth(1),
+                today.plusDays(daysAhead).withDayOfMonth(1)))) {
+            try {
+                ensure(date);
+            } catch (Exception e) {
+                log.warn("Could not provision sheet '{}': {}", SheetLayout.monthSheetName(date), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Asks for a sheet the save path found missing or not ready; it is
+     * provisioned in the background, at most once at a time per sheet.
+     */
+    public void request(String sheetName) {
+        if (!requested.add(sheetName)) return;
+
+        sheetsExecutor.submit(() -> ensureSheet(sheetName))
+                .whenComplete((metadata, error) -> {
+                    requested.remove(sheetName);
+                    if (error != null) {
+                        log.warn("Could not provision sheet '{}': {}", sheetName, error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Creates the month sheet of {@code date}, or repairs it if it exists,
+     * and returns its metadata.
+     */
+    public SheetMetadata ensure(LocalDate date) throws Exception {
+        return ensureSheet(SheetLayout.monthSheetName(date));
+    }
+
+    /**
+     * Creates or repairs one partition sheet (and, for the first, the
+     * summary tab) and returns its metadata.
+     */
+    public synchronized SheetMetadata ensureSheet(String sheetName) throws Exception {
+        Sheets sheets = sheetConfig.getSheetsService();
+        String month = SheetLayout.monthOf(sheetName);
+        if (!month.equals(sheetName)) {
+            // Later partitions only ever follow a provisioned month
+            ensureSheet(month);
+        }
+
+        SheetMetadata metadata = metadataCache.get(sheets, spreadsheetId, sheetName);
+        if (metadata == null) {
+            return createSheet(sheets, sheetName);
+        }
+        if (isReady(sheets, sheetName)) {
+            return metadata;
+        }
+
+        ValueRange legacyBlock = null;
+        if (!metadata.summaryInitialized() && SheetLayout.mayHoldLegacySummary(metadata.columnCount())) {
+            legacyBlock = calls.execute(sheets.spreadsheets().values()
+                    .get(spreadsheetId, legacySummaryRange(sheetName)));
+        }
+        repair(sheets, metadata, legacyBlock);
+        return metadataCache.get(sheets, spreadsheetId, sheetName);
+    }
+
+    private synchronized void repairAll() throws Exception {
+        Sheets sheets = sheetConfig.getSheetsService();
+        List<SheetMetadata> broken = new ArrayList<>();
+        for (SheetMetadata metadata : metadataCache.all(sheets, spreadsheetId)) {
+            if (metadata.title().matches(SheetLayout.MONTH_SHEET_PATTERN) && !isReady(sheets, metadata.title())) {
+                broken.add(metadata);
+            }
+        }
+        if (broken.isEmpty()) return;
+
+        // One read for the old-layout summary block of every sheet that may still have one
+        List<SheetMetadata> unchecked = broken.stream()
+                .filter(metadata -> !metadata.summaryInitialized()
+                        && SheetLayout.mayHoldLegacySummary(metadata.columnCount()))
+                .toList();
+        Map<String, ValueRange> legacyBlocks = new HashMap<>();
+        if (!unchecked.isEmpty()) {
+            List<ValueRange> blocks = calls.execute(sheets.spreadsheets().values()
+                    .batchGet(spreadsheetId)
+                    .setRanges(unchecked.stream().map(metadata -> legacySummaryRange(metadata.title())).toList()))
+                    .getValueRanges();
+            for (int i = 0; i < unchecked.size(); i++) {
+                legacyBlocks.put(unchecked.get(i).title(), blocks.get(i));
+            }
+        }
+
+        int repaired = 0;
+        for (SheetMetadata metadata : broken) {
+            if (repair(sheets, metadata, legacyBlocks.get(metadata.title()))) repaired++;
+        }
+        if (repaired > 0) {
+            log.info("Repaired {} month sheets at startup", repaired);
+        }
+    }
+
+    /**
+     * Brings one sheet to the current layout and returns whether anything
+     * had to be written for it.
+     */
+    private boolean repair(Sheets sheets, SheetMetadata metadata, ValueRange legacyBlock) throws Exception {
+        String sheetName = metadata.title();
+        String month = SheetLayout.monthOf(sheetName);
+        String summaryName = SheetLayout.summaryName(month);
+        SheetWriteBatch writes = new SheetWriteBatch();
+        SheetMetadata fixed = metadata;
+
+        // Migrate sheets formatted row by row to the template, once
+        if (!metadata.templated()) {
+            writes.addRequests(SheetTemplate.provision(metadata.sheetId(), metadata.rowCount(), true));
+            fixed = fixed.withTemplated();
+
+            log.info("Migrating sheet '{}' to template formatting", sheetName);
+        }
+
+        // An empty summary header cell comes back without values
+        boolean legacySummary = legacyBlock != null && legacyBlock.getValues() != null
+                && !legacyBlock.getValues().isEmpty();
+        List<List<Object>> legacyDates = legacySummary ? legacyDates(legacyBlock.getValues()) : List.of();
+        if (legacySummary) {
+            writes.addRequest(clearLegacySummary(metadata));
+            log.info("Moving the summary of '{}' to '{}'", sheetName, summaryName);
+        }
+        fixed = fixed.withSummaryInitialized();
+
+        SheetMetadata summary = null;
+        if (SheetLayout.partitionOf(sheetName) == 1 && metadataCache.get(sheets, spreadsheetId, summaryName) == null) {
+            summary = addSheets(sheets, List.of(addSheet(summaryName, Math.max(SUMMARY_ROWS,
+                    SheetLayout.SUMMARY_FIRST_DATE_ROW + legacyDates.size()), SUMMARY_COLUMNS))).get(0);
+            initializeSummary(writes, summary, month, legacyDates);
+        } else if (legacySummary) {
+            // The tab exists from an interrupted move; write the dates again
+            addSummaryDates(writes, summaryName, legacyDates);
+        }
+
+        try {
+            writes.execute(calls, sheets, spreadsheetId);
+        } catch (Exception e) {
+            if (summary != null) metadataCache.invalidate();
+            throw e;
+        }
+
+        // We changed it ourselves, so the cache can be updated without a read
+        if (summary != null) metadataCache.put(summary);
+        metadataCache.put(fixed);
+        if (summary != null || legacySummary) {
+            summaryIndex.reset(summaryName);
+        }
+        return !writes.isEmpty();
+    }
+
+    private SheetMetadata createSheet(Sheets sheets, String sheetName) throws Exception {
+        String month = SheetLayout.monthOf(sheetName);
+        String summaryName = SheetLayout.summaryName(month);
+        boolean firstPartition = month.equals(sheetName);
+
+        // Create the partition sheet, and the month's summary tab with the first one
+        List<Request> requests = new ArrayList<>();
+        requests.add(addSheet(sheetName, initialRows, SheetLayout.DATA_COLUMNS));
+        if (firstPartition && metadataCache.get(sheets, spreadsheetId, summaryName) == null) {
+            requests.add(addSheet(summaryName, SUMMARY_ROWS, SUMMARY_COLUMNS));
+        }
+        List<SheetMetadata> added = addSheets(sheets, requests);
+        SheetMetadata metadata = added.get(0);
+        SheetMetadata summary = added.size() > 1 ? added.get(1) : null;
+
+        SheetWriteBatch writes = new SheetWriteBatch();
+
+        // Headers for main data (A-H)
+        List<List<Object>> headers = Arrays.asList(
+                Arrays.asList("Date", "Channel Type", "User Name", "UPI ID",
+                        "Amount (₹)", "Status", "Daily Total", "Remarks")
+        );
+        writes.addValues(SheetLayout.range(sheetName, "A1:H1"), headers);
+
+        // Header style, banding, borders and column formats for the whole grid
+        writes.addRequests(SheetTemplate.provision(metadata.sheetId(), metadata.rowCount(), false));
+
+        if (summary != null) {
+            initializeSummary(writes, summary, month, List.of());
+        }
+        writes.execute(calls, sheets, spreadsheetId);
+
+        rowCursors.initialize(sheetName);
+        if (firstPartition) {
+            dailyTotals.initialize(month);
+        }
+        if (summary != null) {
+            summaryIndex.initialize(summaryName, SheetLayout.SUMMARY_FIRST_DATE_ROW);
+            metadataCache.put(summary);
+        }
+
+        // Saves see the sheet only once it is fully set up
+        SheetMetadata ready = metadata.withSummaryInitialized().withTemplated();
+        metadataCache.put(ready);
+        log.info("Provisioned sheet '{}'", sheetName);
+        return ready;
+    }
+
+    private List<SheetMetadata> addSheets(Sheets sheets, List<Request> requests) throws Exception {
+        BatchUpdateSpreadsheetResponse response = calls.executeOnce(sheets.spreadsheets()
+                .batchUpdate(spreadsheetId, new BatchUpdateSpreadsheetRequest().setRequests(requests)));
+
+        // The replies carry the new sheets' properties, so no re-read is needed
+        List<SheetMetadata> added = new ArrayList<>();
+        for (Response reply : response.getReplies()) {
+            added.add(SheetMetadataCache.toMetadata(reply.getAddSheet().getProperties()));
+        }
+        return added;
+    }
+
+    private static Request addSheet(String title, int rows, int columns) {
+        return new Request().setAddSheet(new AddSheetRequest()
+                .setProperties(new SheetProperties()
+                        .setTitle(title)
+                        .setGridProperties(new GridProperties()
+                                .setRowCount(rows)
+                                .setColumnCount(columns))));
+    }
+
+    private void initializeSummary(SheetWriteBatch writes, SheetMetadata summary, String month,
+                                   List<List<Object>> dates) {
+        LocalDate monthStart = SheetLayout.monthStart(month);
+        List<List<Object>> header = Arrays.asList(
+                Arrays.asList("Monthly Summary for " + monthStart.format(DateTimeFormatter.ofPattern("MMMM yyyy")), ""),
+                Arrays.asList("Date", "Total Amount (₹)"),
+                Arrays.asList(SummaryIndex.GRAND_TOTAL_LABEL, SheetLayout.GRAND_TOTAL_FORMULA)
+        );
+        writes.addValues(SheetLayout.range(summary.title(), "A" + SheetLayout.SUMMARY_TITLE_ROW
+                + ":B" + SheetLayout.SUMMARY_GRAND_TOTAL_ROW), header);
+        addSummaryDates(writes, summary.title(), dates);
+
+        // Apply summary formatting
+        writes.addRequests(SheetTemplate.summary(summary.sheetId(),
+                SheetLayout.SUMMARY_TITLE_ROW, SheetLayout.SUMMARY_GRAND_TOTAL_ROW));
+    }
+
+    private static void addSummaryDates(SheetWriteBatch writes, String summaryName, List<List<Object>> dates) {
+        if (dates.isEmpty()) return;
+        int firstRow = SheetLayout.SUMMARY_FIRST_DATE_ROW;
+        writes.addValues(SheetLayout.range(summaryName, "A" + firstRow + ":B" + (firstRow + dates.size() - 1)), dates);
+    }
+
+    private static String legacySummaryRange(String sheetName) {
+        return SheetLayout.range(sheetName, "J" + SheetLayout.LEGACY_SUMMARY_START_ROW + ":K");
+    }
+
+    /**
+     * Date rows of an old-layout summary block (read from J100), skipping
+     * its title, headers and grand total.
+     */
+    private static List<List<Object>> legacyDates(List<List<Object>> block) {
+        List<List<Object>> dates = new ArrayList<>();
+        for (int i = 2; i < block.size(); i++) {
+            List<Object> row = block.get(i);
+            if (row.isEmpty() || row.get(0) == null || row.get(0).toString().isEmpty()) continue;
+            String label = row.get(0).toString();
+            if (SummaryIndex.GRAND_TOTAL_LABEL.equals(label)) continue;
+
+            Object total = row.size() > 1 ? Paise.toRupees(Paise.of(row.get(1))) : "";
+            dates.add(Arrays.asList(label, total));
+        }
+        return dates;
+    }
+
+    private static Request clearLegacySummary(SheetMetadata metadata) {
+        // Values and formats of J/K from the old summary row down
+        return new Request().setUpdateCells(new UpdateCellsRequest()
+                .setRange(new GridRange()
+                        .setSheetId(metadata.sheetId())
+                        .setStartRowIndex(SheetLayout.LEGACY_SUMMARY_START_ROW - 1)
+                        .setEndRowIndex(Math.max(metadata.rowCount(), SheetLayout.LEGACY_SUMMARY_START_ROW))
+                        .setStartColumnIndex(SheetLayout.LEGACY_SUMMARY_COLUMN_K - 1)
+                        .setEndColumnIndex(SheetLayout.LEGACY_SUMMARY_COLUMN_K + 1))
+                .setFields("userEnteredValue,userEnteredFormat"));
+    }
+}
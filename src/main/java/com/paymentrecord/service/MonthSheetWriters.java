@@ -0,0 +1,160 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single writer per month: every write to a month's sheets (saves, totals
+ * corrections) is a message in that month's mailbox, and the mailbox is
+ * drained by exactly one worker at a time.
+ *
+ * Months are striped over {@code writer-stripes} workers by name. A worker
+ * takes one message per month in turn, so a backfill into a past month and
+ * today's traffic share a stripe fairly, and months on different stripes
+ * are written in parallel. Running totals, summary rows and row cursors
+ * are per month, so they need no further locking. Workers drain on the
+ * {@link SheetsExecutor}, which still caps how many talk to Google at once.
+ */
+@Component
+public class MonthSheetWriters {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthSheetWriters.class);
+
+    // Messages a worker handles before handing its thread back to the executor
+    private static final int DRAIN_LIMIT = 16;
+
+    private final GoogleSheetService sheetService;
+    private final SheetsExecutor sheetsExecutor;
+    private final Stripe[] stripes;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public MonthSheetWriters(GoogleSheetService sheetService, SheetsExecutor sheetsExecutor, PaymentMetrics metrics,
+                             @Value("${paymentrecord.sheets.writer-stripes:4}") int stripeCount) {
+        this.sheetService = sheetService;
+        this.sheetsExecutor = sheetsExecutor;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        metrics.gauge("paymentrecord.month.writer.backlog", "Month sheet writes waiting in a mailbox", pending::get);
+    }
+
+    /**
+     * Writes a batch through the month writers and returns one future per
+     * payment, in batch order. Each month's part is a separate
+     * {@link GoogleSheetService#saveBatch} call, so months fail (and are
+     * retried) independently of each other.
+     */
+    public List<CompletableFuture<Integer>> write(List<PaymentRequest> batch) {
+        Map<String, List<Integer>> indexesByMonth = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            indexesByMonth.computeIfAbsent(SheetLayout.monthSheetName(batch.get(i).getDate()),
+                    k -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        indexesByMonth.forEach((month, indexes) -> {
+            List<PaymentRequest> part = indexes.stream().map(batch::get).toList();
+            submit(month, () -> sheetService.saveBatch(part)).whenComplete((rows, error) -> {
+                if (error != null) {
+                    if (error instanceof SheetNotReadyException) {
+                        log.warn("Deferring {} payments for {}: {}", part.size(), month, error.getMessage());
+                    } else {
+                        log.error("Failed to write {} payments for {}", part.size(), month, error);
+                    }
+                }
+                for (int i = 0; i < indexes.size(); i++) {
+                    CompletableFuture<Integer> result = results.get(indexes.get(i));
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(rows.get(i));
+                    }
+                }
+            });
+        });
+        return results;
+    }
+
+    /**
+     * Runs {@code task} as the month's writer, after everything already in
+     * its mailbox.
+     */
+    public <T> CompletableFuture<T> submit(String month, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        pending.incrementAndGet();
+        stripes[Math.floorMod(month.hashCode(), stripes.length)].post(month, () -> {
+            pending.decrementAndGet();
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The mailboxes of the months of one stripe and the turn order between
+     * them; at most one drain runs per stripe.
+     */
+    private final class Stripe {
+        private final Map<String, ArrayDeque<Runnable>> mailboxes = new HashMap<>();
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private boolean draining;
+
+        void post(String month, Runnable message) {
+            synchronized (this) {
+                ArrayDeque<Runnable> mailbox = mailboxes.computeIfAbsent(month, k -> new ArrayDeque<>());
+                if (mailbox.isEmpty()) turns.add(month);
+                mailbox.add(message);
+                if (draining) return;
+                draining = true;
+            }
+            sheetsExecutor.submit(this::drain);
+        }
+
+        private Void drain() {
+            for (int handled = 0; ; handled++) {
+                Runnable message;
+                synchronized (this) {
+                    if (turns.isEmpty()) {
+                        draining = false;
+                        return null;
+                    }
+                    if (handled == DRAIN_LIMIT) break;
+
+                    // One message per month, then the month goes to the back of the line
+                    String month = turns.poll();
+                    ArrayDeque<Runnable> mailbox = mailboxes.get(month);
+                    message = mailbox.poll();
+                    if (mailbox.isEmpty()) {
+                        mailboxes.remove(month);
+                    } else {
+                        turns.add(month);
+                    }
+                }
+                message.run();
+            }
+            // Still draining: continue in a fresh task so other Sheets work gets a turn
+            sheetsExecutor.submit(this::drain);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.paymentrecord.service;
+
+/**
+ * Rupee amounts as whole paise in a {@code long}, so totals add up exactly.
+ *
+ * {@link #parse(CharSequence)} reads sheet values such as {@code ₹1,234.50}
+ * without building intermediate strings, and {@link #appendTo} writes an
+ * amount into a caller's buffer; neither allocates.
+ */
+public final class Paise {
+
+    /** Returned by {@link #parse(CharSequence)} for text that is not an amount, or too large for one. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private Paise() {
+    }
+
+    /**
+     * Paise in a request amount; null counts as zero.
+     */
+    public static long of(Double rupees) {
+        return rupees == null ? 0 : Math.round(rupees * 100);
+    }
+
+    /**
+     * Paise in a cell value as read from a sheet (a number or formatted text).
+     * Like SUM in Sheets, text that is not an amount counts as zero.
+     */
+    public static long of(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number number) return Math.round(number.doubleValue() * 100);
+        long paise = parse(value instanceof CharSequence text ? text : value.toString());
+        return paise == INVALID ? 0 : paise;
+    }
+
+    /**
+     * Parses amounts like {@code 1234.5}, {@code ₹1,234.50} or {@code -20};
+     * the rupee sign, digit-group commas and spaces are skipped and a third
+     * decimal rounds half up. Anything else, such as {@code 1.2.3},
+     * {@code N/A} or {@code 1e3}, and amounts beyond a {@code long} of paise
+     * yield {@link #INVALID}.
+     */
+    public static long parse(CharSequence text) {
+        long value = 0;
+        int decimals = -1;
+        boolean negative = false;
+        boolean digits = false;
+        boolean roundUp = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (decimals < 2) {
+                    if (value > (Long.MAX_VALUE - (c - '0')) / 10) return INVALID;
+                    value = value * 10 + (c - '0');
+                    if (decimals >= 0) decimals++;
+                } else if (decimals == 2) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else if (c == '.') {
+                if (decimals >= 0) return INVALID;
+                decimals = 0;
+            } else if (c == '-' && !digits && !negative) {
+                negative = true;
+            } else if (c != ',' && c != '₹' && !Character.isWhitespace(c)) {
+                return INVALID;
+            }
+        }
+        if (!digits) return INVALID;
+
+        for (int scale = Math.max(Math.min(decimals, 2), 0); scale < 2; scale++) {
+            if (value > Long.MAX_VALUE / 10) return INVALID;
+            value *= 10;
+        }
+        if (roundUp) {
+            if (value == Long.MAX_VALUE) return INVALID;
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * The amount in rupees, for writing into a sheet or a JSON response.
+     */
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    /**
+     * Appends the amount as plain rupees with two decimals, e.g. {@code -1234.05}.
+     */
+    public static StringBuilder appendTo(StringBuilder out, long paise) {
+        if (paise < 0) {
+            out.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % 100;
+        return out.append(paise / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+    }
+}
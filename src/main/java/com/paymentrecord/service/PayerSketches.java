@@ -0,0 +1,310 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PayerAnalyticsResponse;
+import com.paymentrecord.dto.PayerEstimateResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Fixed-size streaming summaries of who pays, so payer questions never
+ * scan the month sheets.
+ *
+ * Space-saving tables keep the heavy hitters: UPI IDs by amount and by
+ * payment count, and user names by count. Count-min sketches answer the
+ * count and amount of any single UPI ID. A HyperLogLog per day counts
+ * distinct payers (UPI ID, or user name when there is none); months are the
+ * union of their days. Only the last {@link #DAYS_KEPT} days keep their own
+ * HyperLogLog: older days are merged into their month, and months older
+ * than {@link #MONTHS_KEPT} are dropped, so the sketches never hold more
+ * than about half a megabyte. Payers are keyed by a hash of their
+ * case-folded name, not by {@link PaymentCodes} code, and the tables hold
+ * at most {@code TOP_CAPACITY} names each. {@link PaymentIndex} feeds it
+ * like {@link PaymentRollups}; since none of these can subtract, clearing a
+ * sheet rebuilds them from the index instead.
+ */
+@Component
+public class PayerSketches {
+
+    private static final int TOP_CAPACITY = 256;
+    private static final int CMS_DEPTH = 4;
+    private static final int CMS_WIDTH = 1 << 13;
+    private static final int HLL_BITS = 12; // 4096 registers, about 1.6% standard error
+
+    /** Days behind the newest one that still have their own distinct payer count. */
+    static final int DAYS_KEPT = 93;
+    /** Months, counting the newest day's, whose distinct payer count is kept. */
+    static final int MONTHS_KEPT = 36;
+
+    private static final long UPI_SALT = 0x5DEECE66DL;
+    private static final long USER_SALT = 0x2545F4914F6CDD1DL;
+
+    private final PaymentCodes codes;
+
+    private SpaceSaving upiIdsByAmount = new SpaceSaving(TOP_CAPACITY);
+    private SpaceSaving upiIdsByCount = new SpaceSaving(TOP_CAPACITY);
+    private SpaceSaving userNamesByCount = new SpaceSaving(TOP_CAPACITY);
+    private CountMinSketch countsByUpiId = new CountMinSketch();
+    private CountMinSketch paiseByUpiId = new CountMinSketch();
+    private final NavigableMap<Integer, HyperLogLog> payersByDay = new TreeMap<>();
+    // Months with days that left the daily window; their days are merged in
+    private final NavigableMap<YearMonth, HyperLogLog> payersByMonth = new TreeMap<>();
+
+    public PayerSketches(PaymentCodes codes) {
+        this.codes = codes;
+    }
+
+    synchronized void add(CompactPayment payment) {
+        String upiId = foldedName(codes.upiIds(), payment.upiId());
+        String user = foldedName(codes.users(), payment.user());
+        long paise = payment.hasAmount() ? payment.paise() : 0;
+
+        if (upiId != null) {
+            long hash = hash(upiId, UPI_SALT);
+            upiIdsByCount.add(upiId, 1);
+            countsByUpiId.add(hash, 1);
+            if (paise > 0) {
+                upiIdsByAmount.add(upiId, paise);
+                paiseByUpiId.add(hash, paise);
+            }
+        }
+        if (user != null) {
+            userNamesByCount.add(user, 1);
+        }
+
+        if (upiId != null) {
+            addPayer(payment.epochDay(), hash(upiId, UPI_SALT));
+        } else if (user != null) {
+            addPayer(payment.epochDay(), hash(user, USER_SALT));
+        }
+    }
+
+    private void addPayer(int epochDay, long payer) {
+        int newest = payersByDay.isEmpty() ? epochDay : Math.max(epochDay, payersByDay.lastKey());
+        int firstDayKept = newest - DAYS_KEPT + 1;
+        if (epochDay >= firstDayKept) {
+            payersByDay.computeIfAbsent(epochDay, day -> new HyperLogLog()).add(payer);
+        } else {
+            monthOf(epochDay).add(payer);
+        }
+
+        // Days that left the window are merged into their month; the oldest months go
+        while (payersByDay.firstKey() < firstDayKept) {
+            Map.Entry<Integer, HyperLogLog> oldest = payersByDay.pollFirstEntry();
+            monthOf(oldest.getKey()).merge(oldest.getValue());
+        }
+        payersByMonth.headMap(YearMonth.from(LocalDate.ofEpochDay(newest)).minusMonths(MONTHS_KEPT - 1)).clear();
+    }
+
+    private HyperLogLog monthOf(int epochDay) {
+        return payersByMonth.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(epochDay)),
+                month -> new HyperLogLog());
+    }
+
+    /**
+     * Starts over from {@code payments}, e.g. after rows were cleared.
+     */
+    synchronized void reset(Collection<CompactPayment> payments) {
+        upiIdsByAmount = new SpaceSaving(TOP_CAPACITY);
+        upiIdsByCount = new SpaceSaving(TOP_CAPACITY);
+        userNamesByCount = new SpaceSaving(TOP_CAPACITY);
+        countsByUpiId = new CountMinSketch();
+        paiseByUpiId = new CountMinSketch();
+        payersByDay.clear();
+        payersByMonth.clear();
+        payments.forEach(this::add);
+    }
+
+    /**
+     * The {@code top} heavy hitters of each table (all time) and distinct
+     * payers for every day and month between {@code from} and {@code to}
+     * inclusive (either may be null). Days older than the daily window are
+     * not listed, and a month with such days counts as a whole.
+     */
+    public synchronized PayerAnalyticsResponse report(LocalDate from, LocalDate to, int top, boolean complete) {
+        long fromDay = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+        long toDay = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+
+        Map<YearMonth, HyperLogLog> byMonth = new TreeMap<>();
+        payersByMonth.forEach((month, payers) -> {
+            if (month.atEndOfMonth().toEpochDay() < fromDay || month.atDay(1).toEpochDay() > toDay) return;
+            byMonth.computeIfAbsent(month, m -> new HyperLogLog()).merge(payers);
+        });
+
+        List<PayerAnalyticsResponse.DistinctPayers> byDay = new ArrayList<>();
+        payersByDay.forEach((epochDay, payers) -> {
+            if (epochDay < fromDay || epochDay > toDay) return;
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            byDay.add(new PayerAnalyticsResponse.DistinctPayers(day.toString(), payers.estimate()));
+            byMonth.computeIfAbsent(YearMonth.from(day), month -> new HyperLogLog()).merge(payers);
+        });
+
+        List<PayerAnalyticsResponse.DistinctPayers> months = new ArrayList<>();
+        byMonth.forEach((month, payers) ->
+                months.add(new PayerAnalyticsResponse.DistinctPayers(month.toString(), payers.estimate())));
+
+        return new PayerAnalyticsResponse(complete,
+                upiIdsByAmount.top(top, true),
+                upiIdsByCount.top(top, false),
+                userNamesByCount.top(top, false),
+                byDay, months);
+    }
+
+    /**
+     * Estimated payment count and amount of one UPI ID (case-insensitive).
+     */
+    public synchronized PayerEstimateResponse estimate(String upiId) {
+        if (upiId == null || upiId.isBlank()) {
+            return new PayerEstimateResponse(upiId, 0, 0);
+        }
+        String folded = fold(upiId);
+        long hash = hash(folded, UPI_SALT);
+        return new PayerEstimateResponse(folded, countsByUpiId.estimate(hash),
+                Paise.toRupees(paiseByUpiId.estimate(hash)));
+    }
+
+    private static String foldedName(PaymentCodes.Dictionary dictionary, int code) {
+        return code == PaymentCodes.Dictionary.NONE ? null : dictionary.name(dictionary.folded(code));
+    }
+
+    private static String fold(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // FNV-1a over the name, then the SplitMix64 finaliser to spread it over the whole hash space
+    private static long hash(String name, long salt) {
+        long h = 0xCBF29CE484222325L ^ salt;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Weighted space-saving: at most {@code capacity} counters. An untracked
+     * key takes over the smallest counter and inherits its value as error,
+     * so every key whose true weight exceeds total / capacity is tracked.
+     */
+    private static final class SpaceSaving {
+        private final String[] keys;
+        private final long[] values;
+        private final long[] errors;
+        private final Map<String, Integer> slotByKey = new HashMap<>();
+        private int size;
+
+        SpaceSaving(int capacity) {
+            keys = new String[capacity];
+            values = new long[capacity];
+            errors = new long[capacity];
+        }
+
+        void add(String key, long weight) {
+            Integer slot = slotByKey.get(key);
+            if (slot == null) {
+                if (size < keys.length) {
+                    slot = size++;
+                } else {
+                    slot = 0;
+                    for (int i = 1; i < size; i++) {
+                        if (values[i] < values[slot]) slot = i;
+                    }
+                    slotByKey.remove(keys[slot]);
+                    errors[slot] = values[slot];
+                }
+                keys[slot] = key;
+                slotByKey.put(key, slot);
+            }
+            values[slot] += weight;
+        }
+
+        List<PayerAnalyticsResponse.TopPayer> top(int limit, boolean paise) {
+            Integer[] slots = new Integer[size];
+            for (int i = 0; i < size; i++) slots[i] = i;
+            Arrays.sort(slots, (a, b) -> Long.compare(values[b], values[a]));
+
+            List<PayerAnalyticsResponse.TopPayer> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, size); i++) {
+                int slot = slots[i];
+                result.add(new PayerAnalyticsResponse.TopPayer(keys[slot],
+                        paise ? Paise.toRupees(values[slot]) : values[slot],
+                        paise ? Paise.toRupees(errors[slot]) : errors[slot]));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * {@code CMS_DEPTH} rows of {@code CMS_WIDTH} counters; a key's estimate
+     * is its smallest counter, which never undercounts.
+     */
+    private static final class CountMinSketch {
+        private final long[][] counters = new long[CMS_DEPTH][CMS_WIDTH];
+
+        void add(long hash, long weight) {
+            for (int row = 0; row < CMS_DEPTH; row++) {
+                counters[row][column(hash, row)] += weight;
+            }
+        }
+
+        long estimate(long hash) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < CMS_DEPTH; row++) {
+                min = Math.min(min, counters[row][column(hash, row)]);
+            }
+            return min;
+        }
+
+        // Row r uses h1 + r * h2 (Kirsch-Mitzenmacher) from the two halves of the hash
+        private static int column(long hash, int row) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            return (h1 + row * h2) & (CMS_WIDTH - 1);
+        }
+    }
+
+    private static final class HyperLogLog {
+        private static final int REGISTERS = 1 << HLL_BITS;
+        private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+        private final byte[] registers = new byte[REGISTERS];
+
+        void add(long hash) {
+            int index = (int) (hash >>> (64 - HLL_BITS));
+            int rank = Long.numberOfLeadingZeros((hash << HLL_BITS) | (1L << (HLL_BITS - 1))) + 1;
+            if (rank > registers[index]) registers[index] = (byte) rank;
+        }
+
+        void merge(HyperLogLog other) {
+            for (int i = 0; i < REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+            }
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) zeros++;
+            }
+            double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+            // Small ranges: linear counting is more accurate while registers are still empty
+            if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+                estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+            }
+            return Math.round(estimate);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.BulkImportResponse;
+import com.paymentrecord.dto.BulkRecordResult;
+import com.paymentrecord.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Streams a bulk upload (JSON array, NDJSON or CSV) into the ledger and the
+ * sheets in chunks. Each chunk is one ledger append plus one
+ * {@link GoogleSheetService#saveBatch} call, which groups the records by
+ * month sheet and updates each daily total once. Records whose idempotency
+ * key was already seen are reported as duplicates and not written. A body
+ * that breaks off (malformed JSON) is reported as a rejected record at that
+ * index; the records before it are recorded and reported as usual.
+ */
+@Service
+public class PaymentBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentBulkImporter.class);
+
+    // ₹100 crore; anything larger is a typo or garbage, and would overflow paise sums
+    static final double MAX_AMOUNT = 1_000_000_000d;
+
+    private final SheetProjector projector;
+    private final ObjectMapper objectMapper;
+    private final PaymentDedupeIndex dedupeIndex;
+    private final int chunkSize;
+
+    public PaymentBulkImporter(SheetProjector projector, ObjectMapper objectMapper,
+                               PaymentDedupeIndex dedupeIndex,
+                               @Value("${paymentrecord.bulk.chunk-size:500}") int chunkSize) {
+        this.projector = projector;
+        this.objectMapper = objectMapper;
+        this.dedupeIndex = dedupeIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkImportResponse importPayments(InputStream body, MediaType contentType) throws Exception {
+        List<BulkRecordResult> results = new ArrayList<>();
+        List<PaymentRequest> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        List<CompletableFuture<Integer>> chunkResults = new ArrayList<>(chunkSize);
+
+        try (PaymentStreamReader reader = PaymentStreamReader.open(body, contentType, objectMapper)) {
+            int index = 0;
+            PaymentStreamReader.ParsedPayment parsed;
+            while ((parsed = reader.next()) != null) {
+                String error = parsed.error() != null ? parsed.error() : validate(parsed.request());
+                CompletableFuture<Integer> result = new CompletableFuture<>();
+                CompletableFuture<Integer> original;
+                if (error != null) {
+                    results.add(BulkRecordResult.rejected(index, error));
+                } else if ((original = dedupeIndex.claim(parsed.request(), result)) != null) {
+                    Integer row = original.isCompletedExceptionally() ? null : original.getNow(null);
+                    results.add(BulkRecordResult.duplicate(index, row));
+                } else {
+                    chunk.add(parsed.request());
+                    chunkIndexes.add(index);
+                    chunkResults.add(result);
+                    if (chunk.size() >= chunkSize) {
+                        flush(chunk, chunkIndexes, chunkResults, results);
+                    }
+                }
+                index++;
+            }
+        }
+        flush(chunk, chunkIndexes, chunkResults, results);
+
+        // Chunks complete out of input order relative to rejected records
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+
+        int accepted = count(results, BulkRecordResult.ACCEPTED);
+        int duplicates = count(results, BulkRecordResult.DUPLICATE);
+        return new BulkImportResponse(accepted, results.size() - accepted - duplicates, duplicates, results);
+    }
+
+    private static int count(List<BulkRecordResult> results, String status) {
+        return (int) results.stream()
+                .filter(result -> status.equals(result.getStatus()))
+                .count();
+    }
+
+    private void flush(List<PaymentRequest> chunk, List<Integer> chunkIndexes,
+                       List<CompletableFuture<Integer>> chunkResults, List<BulkRecordResult> results) {
+        if (chunk.isEmpty()) return;
+
+        try {
+            // Rows are null for records recorded in the ledger but not yet in the sheet
+            List<Integer> rows = projector.submitAll(List.copyOf(chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BulkRecordResult.accepted(chunkIndexes.get(i), rows.get(i)));
+                if (rows.get(i) != null) chunkResults.get(i).complete(rows.get(i));
+            }
+        } catch (IOException e) {
+            log.error("Bulk chunk of {} payments could not be recorded", chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                // Not recorded, so a re-upload of the record must not count as a duplicate
+                dedupeIndex.release(chunk.get(i));
+                chunkResults.get(i).completeExceptionally(e);
+                results.add(BulkRecordResult.rejected(chunkIndexes.get(i), "Write failed: " + e.getMessage()));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+        chunkResults.clear();
+    }
+
+    static String validate(PaymentRequest request) {
+        if (request == null) return "Empty record";
+        if (request.getDate() == null) return "date is required";
+        if (request.getAmount() == null) return "amount is required";
+        double amount = request.getAmount();
+        if (!Double.isFinite(amount) || amount <= 0) return "amount must be a positive number";
+        if (amount > MAX_AMOUNT) return "amount must not exceed " + (long) MAX_AMOUNT;
+        return null;
+    }
+}
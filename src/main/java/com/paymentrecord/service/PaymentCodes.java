@@ -0,0 +1,109 @@
+package com.paymentrecord.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Interned dictionary codes for the text fields of indexed payments:
+ * channel type, status, user name, UPI ID and sheet.
+ *
+ * Each distinct string is stored once and payments hold small ints instead,
+ * which keeps {@link CompactPayment} free of per-row strings. Every code
+ * also knows the code of its case-folded form, so case-insensitive lookups
+ * compare ints.
+ */
+@Component
+public class PaymentCodes {
+
+    private final Dictionary channels = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private final Dictionary users = new Dictionary();
+    private final Dictionary upiIds = new Dictionary();
+    private final Dictionary sheets = new Dictionary();
+
+    public Dictionary channels() {
+        return channels;
+    }
+
+    public Dictionary statuses() {
+        return statuses;
+    }
+
+    public Dictionary users() {
+        return users;
+    }
+
+    public Dictionary upiIds() {
+        return upiIds;
+    }
+
+    public Dictionary sheets() {
+        return sheets;
+    }
+
+    /**
+     * String to code and back. Code 0 stands for null.
+     */
+    public static final class Dictionary {
+
+        public static final int NONE = 0;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] names = new String[64];
+        private int[] folded = new int[64];
+        private int size = 1;
+
+        /**
+         * The code of {@code value}, adding it if it is new.
+         */
+        public synchronized int code(String value) {
+            if (value == null) return NONE;
+            Integer code = codes.get(value);
+            return code != null ? code : add(value);
+        }
+
+        /**
+         * The code of the case-folded form of {@code code}'s string.
+         */
+        public synchronized int folded(int code) {
+            return folded[code];
+        }
+
+        /**
+         * The folded code matching {@code value} case-insensitively, or -1 if
+         * no such string has been seen. Never adds.
+         */
+        public synchronized int find(String value) {
+            if (value == null) return NONE;
+            Integer code = codes.get(fold(value));
+            return code != null ? code : -1;
+        }
+
+        public synchronized String name(int code) {
+            return names[code];
+        }
+
+        private int add(String value) {
+            String foldedValue = fold(value);
+            int foldedCode = foldedValue.equals(value) ? -1 : code(foldedValue);
+
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                folded = Arrays.copyOf(folded, size * 2);
+            }
+            int code = size++;
+            names[code] = value;
+            folded[code] = foldedCode == -1 ? code : foldedCode;
+            codes.put(value, code);
+            return code;
+        }
+
+        private static String fold(String value) {
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remembers idempotency keys so a retried save is not written twice.
+ *
+ * Recent keys live in an LRU map together with the original write's future,
+ * so a duplicate can report the original row. Every key is also kept as a
+ * 64-bit hash in a per-month open-addressing set, backed by an append-only
+ * file of hashes ({@code <data-dir>/dedupe/2026-10.idx}), so duplicates are still
+ * caught after they fall out of the LRU or the app restarts. Only the most
+ * recently used months are held in memory.
+ *
+ * A claim is held in memory only until {@link #commit} confirms the payment
+ * is in the ledger, so a crash in between never leaves a key on disk for a
+ * payment that was not recorded. The opposite gap (recorded, key not yet on
+ * disk) is closed at startup, when unprojected ledger entries are claimed
+ * and committed again.
+ */
+@Component
+public class PaymentDedupeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentDedupeIndex.class);
+
+    private static final CompletableFuture<Integer> KNOWN = CompletableFuture.completedFuture(null);
+
+    private final Path directory;
+    private final Map<String, CompletableFuture<Integer>> recent;
+    private final Map<YearMonth, MonthHashes> months;
+
+    public PaymentDedupeIndex(@Value("${paymentrecord.dedupe.dir}") String directory,
+                              @Value("${paymentrecord.dedupe.max-recent:10000}") int maxRecent,
+                              @Value("${paymentrecord.dedupe.max-months:2}") int maxMonths) throws IOException {
+        this.directory = Paths.get(directory);
+        Files.createDirectories(this.directory);
+
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Integer>> eldest) {
+                return size() > maxRecent;
+            }
+        };
+        this.months = new LinkedHashMap<>(4, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, MonthHashes> eldest) {
+                if (size() <= maxMonths) return false;
+                eldest.getValue().close();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * The payment's idempotency key: the explicit one if given, otherwise one
+     * derived from date, UPI ID, amount and client reference. Null when the
+     * client supplied neither, in which case the payment is never deduplicated.
+     */
+    public static String keyOf(PaymentRequest request) {
+        if (request.getIdempotencyKey() != null && !request.getIdempotencyKey().isBlank()) {
+            return request.getIdempotencyKey();
+        }
+        if (request.getClientReference() == null || request.getClientReference().isBlank()) {
+            return null;
+        }
+        return request.getDate() + "|" + request.getUpiId() + "|" + request.getAmount()
+                + "|" + request.getClientReference();
+    }
+
+    /**
+     * Claims the payment's key for {@code result}. Returns null if the key
+     * is new (or the payment has none); otherwise returns the original
+     * write's future, or a completed one with no row if it is no longer
+     * in the LRU. A new key must be {@link #commit committed} once the
+     * payment is in the ledger, or {@link #release released} if it never
+     * gets there.
+     */
+    public synchronized CompletableFuture<Integer> claim(PaymentRequest request, CompletableFuture<Integer> result) {
+        String key = keyOf(request);
+        if (key == null) return null;
+
+        CompletableFuture<Integer> original = recent.get(key);
+        if (original != null) return original;
+
+        MonthHashes hashes = monthOf(request);
+        if (!hashes.insert(hash(key))) return KNOWN;
+
+        recent.put(key, result);
+        return null;
+    }
+
+    /**
+     * Persists a claimed key; called once its payment is durable in the ledger.
+     */
+    public synchronized void commit(PaymentRequest request) {
+        String key = keyOf(request);
+        if (key == null) return;
+
+        monthOf(request).persist(hash(key));
+    }
+
+    /**
+     * Forgets a claimed key whose payment never made it to the ledger, so a
+     * retry is accepted.
+     */
+    public synchronized void release(PaymentRequest request) {
+        String key = keyOf(request);
+        if (key == null) return;
+
+        recent.remove(key);
+        monthOf(request).remove(hash(key));
+    }
+
+    private MonthHashes monthOf(PaymentRequest request) {
+        YearMonth month = YearMonth.from(request.getDate());
+        return months.computeIfAbsent(month, m -> new MonthHashes(directory.resolve(m + ".idx")));
+    }
+
+    // 64-bit FNV-1a with a final avalanche step; collisions are negligible at sheet scale
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;   // 0 marks an empty slot
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        months.values().forEach(MonthHashes::close);
+        months.clear();
+    }
+
+    /**
+     * Open-addressing set of key hashes for one month; committed hashes are
+     * appended to a file of 8-byte entries. Only uncommitted claims are ever
+     * removed, so removals (rare: failed appends) rebuild the table but
+     * never touch the file.
+     */
+    private static final class MonthHashes {
+        private final Path file;
+        private FileChannel channel;
+        private long[] slots = new long[1024];
+        private int size;
+
+        private MonthHashes(Path file) {
+            this.file = file;
+            try {
+                if (Files.exists(file)) {
+                    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+                    while (data.remaining() >= Long.BYTES) {
+                        insert(data.getLong());
+                    }
+                }
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                // Still dedupes in memory; only the restart guarantee is lost
+                log.warn("Could not open dedupe file {}", file, e);
+            }
+        }
+
+        // Also inserts, in case the month was evicted and reloaded since the claim
+        private void persist(long hash) {
+            insert(hash);
+            if (channel != null) {
+                try {
+                    channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, hash));
+                } catch (IOException e) {
+                    log.warn("Could not persist dedupe key to {}", file, e);
+                }
+            }
+        }
+
+        private boolean insert(long hash) {
+            if (size * 2 >= slots.length) grow();
+            int mask = slots.length - 1;
+            int i = (int) hash & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == hash) return false;
+                i = (i + 1) & mask;
+            }
+            slots[i] = hash;
+            size++;
+            return true;
+        }
+
+        private void remove(long hash) {
+            int mask = slots.length - 1;
+            int i = (int) hash & mask;
+            while (slots[i] != 0 && slots[i] != hash) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == 0) return;
+
+            // Rebuild the table without it; linear probing cannot just clear the slot
+            long[] old = slots;
+            slots = new long[old.length];
+            size = 0;
+            for (long value : old) {
+                if (value != 0 && value != hash) insert(value);
+            }
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            size = 0;
+            for (long value : old) {
+                if (value != 0) insert(value);
+            }
+        }
+
+        private void close() {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close dedupe file {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.paymentrecord.config.GoogleSheetConfig;
+import com.paymentrecord.dto.PaymentRecordResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Streams the payments of a date range as CSV or NDJSON.
+ *
+ * Once the {@link PaymentIndex} is loaded the export walks it one date at a
+ * time. Until then it reads the month sheets (every partition) in pages of
+ * {@code page-rows} rows; rows come out in sheet order and are filtered by
+ * date. Either way at most one day or one page is held in memory, and the
+ * next one is only fetched after the previous one was written, so a slow
+ * client slows the export instead of filling the heap.
+ */
+@Service
+public class PaymentExporter {
+
+    private final GoogleSheetConfig sheetConfig;
+    private final String spreadsheetId;
+    private final GoogleSheetService sheetService;
+    private final SheetMetadataCache metadataCache;
+    private final SheetsCallExecutor calls;
+    private final PaymentIndex paymentIndex;
+    private final ObjectMapper objectMapper;
+    private final int pageRows;
+
+    public PaymentExporter(GoogleSheetConfig sheetConfig, GoogleSheetService sheetService,
+                           SheetMetadataCache metadataCache, SheetsCallExecutor calls,
+                           PaymentIndex paymentIndex, ObjectMapper objectMapper,
+                           @Value("${paymentrecord.export.page-rows:2000}") int pageRows) {
+        this.sheetConfig = sheetConfig;
+        this.spreadsheetId = sheetConfig.getSpreadsheetId();
+        this.sheetService = sheetService;
+        this.metadataCache = metadataCache;
+        this.calls = calls;
+        this.paymentIndex = paymentIndex;
+        this.objectMapper = objectMapper;
+        this.pageRows = pageRows;
+    }
+
+    /**
+     * Writes every payment dated {@code from} to {@code to} (inclusive) to
+     * {@code out}. A failure after the first page has been sent cuts the
+     * body short; the status line is already gone by then.
+     */
+    public void export(LocalDate from, LocalDate to, MediaType format, OutputStream out) throws IOException {
+        PaymentStreamWriter writer = PaymentStreamWriter.open(out, format, objectMapper);
+        try {
+            if (paymentIndex.isComplete()) {
+                exportFromIndex(from, to, writer);
+            } else {
+                exportFromSheets(from, to, writer);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Export of " + from + " to " + to + " failed: " + e.getMessage(), e);
+        }
+        writer.flush();
+    }
+
+    private void exportFromIndex(LocalDate from, LocalDate to, PaymentStreamWriter writer) throws IOException {
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<PaymentRecordResponse> payments = paymentIndex.day(date);
+            if (payments.isEmpty()) continue;
+            for (PaymentRecordResponse payment : payments) {
+                writer.write(payment);
+            }
+            writer.flush();
+        }
+    }
+
+    private void exportFromSheets(LocalDate from, LocalDate to, PaymentStreamWriter writer) throws Exception {
+        Sheets sheets = sheetConfig.getSheetsService();
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            for (String sheetName : sheetService.partitionsOf(sheets, SheetLayout.monthSheetName(month.atDay(1)))) {
+                exportSheet(sheets, sheetName, fromDay, toDay, writer);
+            }
+        }
+    }
+
+    private void exportSheet(Sheets sheets, String sheetName, int fromDay, int toDay,
+                             PaymentStreamWriter writer) throws Exception {
+        int rowCount = metadataCache.get(sheets, spreadsheetId, sheetName).rowCount();
+        for (int first = SheetLayout.FIRST_DATA_ROW; first <= rowCount; first += pageRows) {
+            // Reads past the grid are rejected, so the last page stops at its end
+            int last = Math.min(first + pageRows - 1, rowCount);
+            ValueRange page = calls.execute(sheets.spreadsheets().values()
+                    .get(spreadsheetId, SheetLayout.range(sheetName, "A" + first + ":H" + last)));
+            List<List<Object>> rows = page.getValues() != null ? page.getValues() : List.of();
+
+            for (int i = 0; i < rows.size(); i++) {
+                PaymentRecordResponse payment = toResponse(rows.get(i), sheetName, first + i, fromDay, toDay);
+                if (payment != null) writer.write(payment);
+            }
+            writer.flush();
+
+            // Trailing empty rows are not returned, so a short page is the end of the data
+            if (rows.size() < last - first + 1) return;
+        }
+    }
+
+    // The payment in one A:H row, or null for an empty row or a date outside the range
+    private static PaymentRecordResponse toResponse(List<Object> row, String sheetName, int sheetRow,
+                                                    int fromDay, int toDay) {
+        int epochDay = CompactPayment.parseSheetDate(cell(row, 0));
+        if (epochDay == CompactPayment.NO_DATE || epochDay < fromDay || epochDay > toDay) return null;
+
+        String amount = cell(row, 4);
+        long paise = amount != null ? Paise.parse(amount) : Paise.INVALID;
+        return new PaymentRecordResponse(LocalDate.ofEpochDay(epochDay), cell(row, 1), cell(row, 2),
+                cell(row, 3), paise != Paise.INVALID ? Paise.toRupees(paise) : null, cell(row, 5),
+                sheetName, sheetRow);
+    }
+
+    private static String cell(List<Object> row, int column) {
+        if (column >= row.size() || row.get(column) == null) return null;
+        String value = row.get(column).toString().trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,342 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentPageResponse;
+import com.paymentrecord.dto.PaymentRecordResponse;
+import com.paymentrecord.dto.PaymentRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory, queryable copy of every payment row in the month sheets.
+ *
+ * Payments are indexed by date (sorted, for ranges, and each date's
+ * payments in query order) and by user name, UPI ID, channel and status
+ * (case-insensitive). A query starts from the smallest matching posting
+ * list and filters the rest, so lookups never touch Sheets; it only ever
+ * holds the matches up to the requested page, never all of them. Entries are keyed by sheet and row, which makes loading a
+ * sheet while saves land in it harmless. Rows are held as
+ * {@link CompactPayment}s, and every change is mirrored into
+ * {@link PaymentRollups} and {@link PayerSketches}.
+ */
+@Component
+public class PaymentIndex {
+
+    // Filter value for "any"; an unknown value resolves to -1 and matches nothing
+    private static final int ANY = -2;
+
+    /**
+     * Query filters; null means "any". Dates are inclusive.
+     */
+    public record Query(LocalDate from, LocalDate to, String userName, String upiId,
+                        String channelType, String status) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, CompactPayment> byLocation = new HashMap<>();
+    private final NavigableMap<Integer, NavigableSet<CompactPayment>> byDate = new TreeMap<>();
+    private final Map<Integer, Set<CompactPayment>> byUser = new HashMap<>();
+    private final Map<Integer, Set<CompactPayment>> byUpi = new HashMap<>();
+    private final Map<Integer, Set<CompactPayment>> byChannel = new HashMap<>();
+    private final Map<Integer, Set<CompactPayment>> byStatus = new HashMap<>();
+
+    private final PaymentCodes codes;
+    private final PaymentRollups rollups;
+    private final PayerSketches sketches;
+    private final Comparator<CompactPayment> order;
+
+    private volatile boolean complete;
+
+    public PaymentIndex(PaymentCodes codes, PaymentRollups rollups, PayerSketches sketches) {
+        this.codes = codes;
+        this.rollups = rollups;
+        this.sketches = sketches;
+        this.order = Comparator.comparingInt(CompactPayment::epochDay)
+                .thenComparing(payment -> codes.sheets().name(payment.sheet()))
+                .thenComparingInt(CompactPayment::row);
+    }
+
+    /**
+     * Indexes payments just written to {@code sheet}, starting at {@code firstRow}.
+     */
+    public void addAll(String sheet, int firstRow, List<PaymentRequest> payments) {
+        int sheetCode = codes.sheets().code(sheet);
+        lock.writeLock().lock();
+        try {
+            int row = firstRow;
+            for (PaymentRequest req : payments) {
+                put(new CompactPayment((int) req.getDate().toEpochDay(),
+                        req.getAmount() != null ? Paise.of(req.getAmount()) : CompactPayment.NO_AMOUNT,
+                        codes.channels().code(req.getChannelType()), codes.statuses().code(req.getStatus()),
+                        codes.users().code(req.getUserName()), codes.upiIds().code(req.getUpiId()),
+                        sheetCode, row++));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the A:H values of a month sheet, header row included.
+     */
+    public void loadSheet(String sheet, List<List<Object>> rows) {
+        int sheetCode = codes.sheets().code(sheet);
+        lock.writeLock().lock();
+        try {
+            for (int i = 1; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                int epochDay = CompactPayment.parseSheetDate(cell(row, 0));
+                if (epochDay == CompactPayment.NO_DATE) continue;
+
+                // An empty or unreadable amount cell is indexed as having no amount
+                String amount = cell(row, 4);
+                long paise = amount != null ? Paise.parse(amount) : Paise.INVALID;
+                put(new CompactPayment(epochDay,
+                        paise != Paise.INVALID ? paise : CompactPayment.NO_AMOUNT,
+                        codes.channels().code(cell(row, 1)), codes.statuses().code(cell(row, 5)),
+                        codes.users().code(cell(row, 2)), codes.upiIds().code(cell(row, 3)),
+                        sheetCode, i + 1));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every payment of the given sheets, e.g. before they are rebuilt.
+     * One pass over the index and at most one sketch rebuild, however many
+     * sheets are cleared.
+     */
+    public void clearSheets(Collection<String> sheets) {
+        Set<Integer> sheetCodes = new HashSet<>();
+        sheets.forEach(sheet -> sheetCodes.add(codes.sheets().code(sheet)));
+        lock.writeLock().lock();
+        try {
+            List<CompactPayment> cleared = byLocation.values().stream()
+                    .filter(payment -> sheetCodes.contains(payment.sheet()))
+                    .toList();
+            for (CompactPayment payment : cleared) {
+                byLocation.remove(location(payment));
+                unlinkAll(payment);
+            }
+            if (!cleared.isEmpty()) {
+                sketches.reset(byLocation.values());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the startup load as done; until then answers may be partial.
+     */
+    public void markComplete() {
+        complete = true;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byLocation.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PaymentPageResponse query(Query query, int page, int size) {
+        Filter filter = new Filter(
+                query.from() != null ? (int) query.from().toEpochDay() : Integer.MIN_VALUE,
+                query.to() != null ? (int) query.to().toEpochDay() : Integer.MAX_VALUE,
+                resolve(codes.users(), query.userName()),
+                resolve(codes.upiIds(), query.upiId()),
+                resolve(codes.channels(), query.channelType()),
+                resolve(codes.statuses(), query.status()));
+
+        long offset = (long) page * size;
+        List<CompactPayment> matches;
+        int total;
+        lock.readLock().lock();
+        try {
+            Collection<CompactPayment> postings = postings(filter);
+            if (postings == null) {
+                // Dates only: walk them in order and stop once the page is full
+                matches = new ArrayList<>(size);
+                total = 0;
+                long skip = offset;
+                NavigableMap<Integer, NavigableSet<CompactPayment>> days = filter.from() <= filter.to()
+                        ? byDate.subMap(filter.from(), true, filter.to(), true)
+                        : Collections.emptyNavigableMap();
+                for (NavigableSet<CompactPayment> day : days.values()) {
+                    total += day.size();
+                    if (matches.size() == size) continue;
+                    if (skip >= day.size()) {
+                        skip -= day.size();
+                        continue;
+                    }
+                    for (CompactPayment payment : day) {
+                        if (skip > 0) {
+                            skip--;
+                            continue;
+                        }
+                        matches.add(payment);
+                        if (matches.size() == size) break;
+                    }
+                }
+            } else {
+                // Keep only the first offset + size matches; the heap's head is the last of them
+                PriorityQueue<CompactPayment> first = new PriorityQueue<>(order.reversed());
+                total = 0;
+                for (CompactPayment payment : postings) {
+                    if (!matches(payment, filter)) continue;
+                    total++;
+                    first.add(payment);
+                    if (first.size() > offset + size) first.poll();
+                }
+                matches = new ArrayList<>(first);
+                matches.sort(order);
+                matches = matches.subList((int) Math.min(offset, matches.size()), matches.size());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<PaymentRecordResponse> payments = new ArrayList<>(matches.size());
+        for (CompactPayment payment : matches) {
+            payments.add(toResponse(payment));
+        }
+        return new PaymentPageResponse(page, size, total, complete, payments);
+    }
+
+    /**
+     * Every payment of one date, in query order. Exports walk a range one
+     * date at a time, so they never copy more than a day out of the index.
+     */
+    public List<PaymentRecordResponse> day(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            Set<CompactPayment> matches = byDate.getOrDefault((int) date.toEpochDay(), Collections.emptyNavigableSet());
+            List<PaymentRecordResponse> payments = new ArrayList<>(matches.size());
+            for (CompactPayment payment : matches) {
+                payments.add(toResponse(payment));
+            }
+            return payments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PaymentRecordResponse toResponse(CompactPayment payment) {
+        return new PaymentRecordResponse(LocalDate.ofEpochDay(payment.epochDay()),
+                codes.channels().name(payment.channel()), codes.users().name(payment.user()),
+                codes.upiIds().name(payment.upiId()),
+                payment.hasAmount() ? Paise.toRupees(payment.paise()) : null,
+                codes.statuses().name(payment.status()), codes.sheets().name(payment.sheet()), payment.row());
+    }
+
+    // Folded codes to match; ANY for filters that were not given
+    private record Filter(int from, int to, int user, int upiId, int channel, int status) {
+    }
+
+    private static int resolve(PaymentCodes.Dictionary dictionary, String value) {
+        return value == null ? ANY : dictionary.find(value);
+    }
+
+    // The smallest posting list among the given filters; null when only dates are given
+    private Collection<CompactPayment> postings(Filter filter) {
+        Collection<CompactPayment> best = null;
+        best = smaller(best, byUser, filter.user());
+        best = smaller(best, byUpi, filter.upiId());
+        best = smaller(best, byChannel, filter.channel());
+        best = smaller(best, byStatus, filter.status());
+        return best;
+    }
+
+    private static Collection<CompactPayment> smaller(Collection<CompactPayment> best,
+                                                      Map<Integer, Set<CompactPayment>> index, int code) {
+        if (code == ANY) return best;
+        Set<CompactPayment> postings = index.getOrDefault(code, Set.of());
+        return (best == null || postings.size() < best.size()) ? postings : best;
+    }
+
+    private boolean matches(CompactPayment payment, Filter filter) {
+        return payment.epochDay() >= filter.from() && payment.epochDay() <= filter.to()
+                && matches(codes.users(), payment.user(), filter.user())
+                && matches(codes.upiIds(), payment.upiId(), filter.upiId())
+                && matches(codes.channels(), payment.channel(), filter.channel())
+                && matches(codes.statuses(), payment.status(), filter.status());
+    }
+
+    private static boolean matches(PaymentCodes.Dictionary dictionary, int code, int wanted) {
+        return wanted == ANY || (code != PaymentCodes.Dictionary.NONE && dictionary.folded(code) == wanted);
+    }
+
+    private void put(CompactPayment payment) {
+        CompactPayment previous = byLocation.put(location(payment), payment);
+        if (previous != null) {
+            unlinkAll(previous);
+        }
+        byDate.computeIfAbsent(payment.epochDay(), k -> new TreeSet<>(order)).add(payment);
+        link(byUser, codes.users(), payment.user(), payment);
+        link(byUpi, codes.upiIds(), payment.upiId(), payment);
+        link(byChannel, codes.channels(), payment.channel(), payment);
+        link(byStatus, codes.statuses(), payment.status(), payment);
+        rollups.apply(payment, 1);
+        // A row indexed again in place (startup load racing a save) is the same payment
+        if (previous == null) {
+            sketches.add(payment);
+        }
+    }
+
+    private void unlinkAll(CompactPayment payment) {
+        unlink(byDate, payment.epochDay(), payment);
+        unlink(byUser, codes.users().folded(payment.user()), payment);
+        unlink(byUpi, codes.upiIds().folded(payment.upiId()), payment);
+        unlink(byChannel, codes.channels().folded(payment.channel()), payment);
+        unlink(byStatus, codes.statuses().folded(payment.status()), payment);
+        rollups.apply(payment, -1);
+    }
+
+    private static long location(CompactPayment payment) {
+        return ((long) payment.sheet() << 32) | payment.row();
+    }
+
+    private static void link(Map<Integer, Set<CompactPayment>> index, PaymentCodes.Dictionary dictionary,
+                             int code, CompactPayment payment) {
+        if (code == PaymentCodes.Dictionary.NONE) return;
+        index.computeIfAbsent(dictionary.folded(code), k -> new HashSet<>()).add(payment);
+    }
+
+    private static void unlink(Map<Integer, ? extends Set<CompactPayment>> index, int key, CompactPayment payment) {
+        if (key == PaymentCodes.Dictionary.NONE) return;
+        Set<CompactPayment> postings = index.get(key);
+        if (postings != null && postings.remove(payment) && postings.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static String cell(List<Object> row, int column) {
+        if (column >= row.size() || row.get(column) == null) return null;
+        String value = row.get(column).toString().trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,495 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.PaymentRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * File-backed {@link PaymentLedger}: an append-only, memory-mapped log of
+ * segment files.
+ *
+ * A payment is appended (and forced to disk) before it is acknowledged, and
+ * marked projected once it is in the sheet. Concurrent appenders share one
+ * {@code force()} (group commit), so acknowledgement costs local-disk
+ * latency rather than a Sheets round-trip. On startup the live segments are
+ * scanned and every payment without a projected marker is handed back for
+ * projection.
+ *
+ * The ledger is the system of record, so payments are never dropped, but a
+ * segment stops being live once it is full and everything in it, and in
+ * every older segment, is projected. A background thread then copies its
+ * payments (not the markers) into an exact-size {@code .archive} file and
+ * deletes the 64 MB mapped segment. Archives are only read by
+ * {@link #forEach}; startup reads just the newest one, for the next
+ * sequence number. Retiring oldest-first means a marker is only dropped
+ * together with the payment it marks.
+ *
+ * Record layout: {@code [int length][int crc32][byte type][long seq][payload]},
+ * where length and crc cover everything after the crc. A zero length marks
+ * the end of a segment's data; a bad crc marks a torn tail write. Archives
+ * hold payment records in the same layout, up to the end of the file.
+ */
+@Component
+public class PaymentJournal implements PaymentLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentJournal.class);
+
+    private static final byte TYPE_PAYMENT = 1;
+    private static final byte TYPE_PROJECTED = 2;
+    private static final int RECORD_HEADER = 8;     // length + crc
+    private static final int BODY_HEADER = 1 + 8;   // type + seq
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ARCHIVE_SUFFIX = ".archive";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ObjectMapper objectMapper;
+
+    private final Object lock = new Object();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final TreeMap<Integer, Path> archives = new TreeMap<>();
+    private final Map<Long, Entry> recovered = new LinkedHashMap<>();
+    private final Map<Long, Segment> unprojectedIn = new HashMap<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+
+    private Segment current;
+    private long nextSeq = 1;
+    private long appended;
+    private long synced;
+    private volatile boolean running = true;
+    private final Thread flusher;
+    private final Thread retirer;
+
+    public PaymentJournal(ObjectMapper objectMapper,
+                          @Value("${paymentrecord.journal.dir}") String directory,
+                          @Value("${paymentrecord.journal.segment-size-mb:64}") int segmentSizeMb) throws IOException {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+
+        Files.createDirectories(this.directory);
+        recover();
+
+        this.flusher = new Thread(this::flushLoop, "payment-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        this.retirer = new Thread(this::retireLoop, "payment-journal-retirer");
+        this.retirer.setDaemon(true);
+        this.retirer.start();
+    }
+
+    @Override
+    public long append(PaymentRequest request) throws IOException {
+        return appendAll(List.of(request)).get(0);
+    }
+
+    @Override
+    public List<Long> appendAll(List<PaymentRequest> requests) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(requests.size());
+        for (PaymentRequest request : requests) {
+            payloads.add(objectMapper.writeValueAsBytes(request));
+        }
+
+        synchronized (lock) {
+            List<Long> seqs = new ArrayList<>(payloads.size());
+            for (byte[] payload : payloads) {
+                long seq = nextSeq++;
+                write(TYPE_PAYMENT, seq, payload);
+                unprojectedIn.put(seq, current);
+                current.unprojected++;
+                seqs.add(seq);
+            }
+
+            // Group commit: wait for the flusher's next force to cover these records
+            long mine = ++appended;
+            lock.notifyAll();
+            while (synced < mine) {
+                if (!running) throw new IOException("Journal is closed");
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for journal sync", e);
+                }
+            }
+            return seqs;
+        }
+    }
+
+    /**
+     * The marker rides along with the next group commit; losing it only
+     * means the payment is projected again after a restart.
+     */
+    @Override
+    public void markProjected(long seq) throws IOException {
+        synchronized (lock) {
+            write(TYPE_PROJECTED, seq, new byte[0]);
+            Segment segment = unprojectedIn.remove(seq);
+            if (segment != null) segment.unprojected--;
+            appended++;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public Collection<Entry> unprojected() {
+        synchronized (lock) {
+            return new ArrayList<>(recovered.values());
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Entry> visitor) throws IOException {
+        // Archives and everything below a segment's position are immutable, so read outside the lock
+        List<Path> archived;
+        List<Segment> snapshot;
+        List<Integer> limits = new ArrayList<>();
+        synchronized (lock) {
+            archived = new ArrayList<>(archives.values());
+            snapshot = new ArrayList<>(segments.values());
+            snapshot.forEach(segment -> limits.add(segment.position));
+        }
+        RecordVisitor payments = (type, seq, body) -> {
+            if (type == TYPE_PAYMENT) visitor.accept(new Entry(seq, decode(body)));
+        };
+        for (Path archive : archived) {
+            readArchive(archive, payments);
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            Segment segment = snapshot.get(i);
+            read(segment.buffer, limits.get(i), segment.file, payments);
+        }
+    }
+
+    private void write(byte type, long seq, byte[] payload) throws IOException {
+        int length = BODY_HEADER + payload.length;
+        int recordSize = RECORD_HEADER + length;
+        if (recordSize + 4 > segmentSize) {
+            throw new IOException("Journal record of " + recordSize + " bytes exceeds segment size");
+        }
+        if (current.position + recordSize + 4 > segmentSize) {
+            current = openSegment(current.number + 1);
+            segments.put(current.number, current);
+        }
+
+        byte[] body = new byte[length];
+        body[0] = type;
+        for (int i = 0; i < 8; i++) {
+            body[1 + i] = (byte) (seq >>> (56 - 8 * i));
+        }
+        System.arraycopy(payload, 0, body, BODY_HEADER, payload.length);
+
+        MappedByteBuffer buffer = current.buffer;
+        int start = current.position;
+        buffer.putInt(start + 4, crc(body));
+        buffer.put(start + RECORD_HEADER, body);
+        // Length last, so a torn write never looks like a complete record
+        buffer.putInt(start, length);
+
+        current.position += recordSize;
+        current.dirtyFrom = Math.min(current.dirtyFrom, start);
+        dirty.add(current);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            List<int[]> ranges = new ArrayList<>();
+            List<Segment> toForce = new ArrayList<>();
+            long target;
+            synchronized (lock) {
+                while (running && appended == synced) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                target = appended;
+                for (Segment segment : dirty) {
+                    toForce.add(segment);
+                    ranges.add(new int[]{segment.dirtyFrom, segment.position});
+                    segment.dirtyFrom = Integer.MAX_VALUE;
+                }
+                dirty.clear();
+            }
+
+            // msync outside the lock so appenders can keep filling the next group
+            for (int i = 0; i < toForce.size(); i++) {
+                int[] range = ranges.get(i);
+                toForce.get(i).buffer.force(range[0], range[1] - range[0]);
+            }
+
+            synchronized (lock) {
+                synced = Math.max(synced, target);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void retireLoop() {
+        while (true) {
+            Segment oldest;
+            int limit;
+            synchronized (lock) {
+                oldest = retirable();
+                while (running && oldest == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    oldest = retirable();
+                }
+                if (!running) return;
+                limit = oldest.position;
+            }
+
+            try {
+                Path archive = archive(oldest, limit);
+                synchronized (lock) {
+                    segments.remove(oldest.number);
+                    if (archive != null) archives.put(oldest.number, archive);
+                }
+                Files.delete(oldest.file);
+            } catch (IOException e) {
+                // Nothing is lost: the segment stays live and is retried after a restart
+                log.warn("Could not retire journal segment {}", oldest.file, e);
+                return;
+            }
+        }
+    }
+
+    // The oldest segment, once it is full and all its payments are projected
+    private Segment retirable() {
+        Segment oldest = segments.firstEntry().getValue();
+        return oldest != current && oldest.unprojected == 0 ? oldest : null;
+    }
+
+    // Copies a segment's payment records into an archive; null if it held none
+    private Path archive(Segment segment, int limit) throws IOException {
+        Path archive = directory.resolve(fileName(segment.number, ARCHIVE_SUFFIX));
+        Path tmp = directory.resolve(fileName(segment.number, ARCHIVE_SUFFIX + TMP_SUFFIX));
+        int[] payments = {0};
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            read(segment.buffer, limit, segment.file, (type, seq, body) -> {
+                if (type != TYPE_PAYMENT) return;
+                out.writeInt(body.length);
+                out.writeInt(crc(body));
+                out.write(body);
+                payments[0]++;
+            });
+            out.flush();
+            channel.force(true);
+        }
+
+        if (payments[0] == 0) {
+            Files.delete(tmp);
+            return null;
+        }
+        // Once the archive is in place the segment is redundant; a crash before its delete is finished on startup
+        Files.move(tmp, archive, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Journal segment {} retired, {} payments archived", segment.number, payments[0]);
+        return archive;
+    }
+
+    private void readArchive(Path archive, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (size > 0) read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), size, archive, visitor);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        TreeMap<Integer, Path> logs = new TreeMap<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TMP_SUFFIX)) {
+                Files.delete(file);
+            } else if (name.endsWith(ARCHIVE_SUFFIX)) {
+                archives.put(numberOf(name), file);
+            } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                logs.put(numberOf(name), file);
+            }
+        }
+
+        // The newest archive holds the highest archived seq
+        if (!archives.isEmpty()) {
+            readArchive(archives.lastEntry().getValue(), (type, seq, body) -> nextSeq = Math.max(nextSeq, seq + 1));
+        }
+
+        for (Map.Entry<Integer, Path> file : logs.entrySet()) {
+            int number = file.getKey();
+            if (archives.containsKey(number)) {
+                // Retired, but the segment's delete did not happen before a crash
+                Files.delete(file.getValue());
+                continue;
+            }
+            Segment segment = openSegment(number);
+            segments.put(number, segment);
+
+            int end = read(segment.buffer, segmentSize, segment.file, (type, seq, body) -> {
+                nextSeq = Math.max(nextSeq, seq + 1);
+                if (type == TYPE_PAYMENT) {
+                    recovered.put(seq, new Entry(seq, decode(body)));
+                    unprojectedIn.put(seq, segment);
+                    segment.unprojected++;
+                } else if (type == TYPE_PROJECTED) {
+                    recovered.remove(seq);
+                    Segment marked = unprojectedIn.remove(seq);
+                    if (marked != null) marked.unprojected--;
+                }
+            });
+
+            // Clear anything after the last good record so new appends start clean
+            for (int i = end; i < Math.min(end + RECORD_HEADER, segmentSize); i++) {
+                segment.buffer.put(i, (byte) 0);
+            }
+            segment.position = end;
+        }
+
+        if (segments.isEmpty()) {
+            int number = archives.isEmpty() ? 1 : archives.lastKey() + 1;
+            segments.put(number, openSegment(number));
+        }
+        current = segments.lastEntry().getValue();
+
+        if (!recovered.isEmpty()) {
+            log.info("Journal recovered {} unprojected payments", recovered.size());
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(byte type, long seq, byte[] body) throws IOException;
+    }
+
+    // Reads records up to limit, stopping at the end marker or a torn record; returns the end offset
+    private int read(ByteBuffer buffer, int limit, Path file, RecordVisitor visitor) throws IOException {
+        int position = 0;
+        while (position + RECORD_HEADER + BODY_HEADER <= limit) {
+            int length = buffer.getInt(position);
+            if (length < BODY_HEADER || position + RECORD_HEADER + length > limit) break;
+
+            byte[] body = new byte[length];
+            buffer.get(position + RECORD_HEADER, body);
+            if (crc(body) != buffer.getInt(position + 4)) {
+                log.warn("Journal file {} has a torn record at offset {}", file.getFileName(), position);
+                break;
+            }
+
+            long seq = 0;
+            for (int i = 0; i < 8; i++) {
+                seq = (seq << 8) | (body[1 + i] & 0xFF);
+            }
+            visitor.visit(body[0], seq, body);
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    private static int crc(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private PaymentRequest decode(byte[] body) {
+        try {
+            return objectMapper.readValue(body, BODY_HEADER, body.length - BODY_HEADER, PaymentRequest.class);
+        } catch (IOException e) {
+            // The crc matched, so this is a format problem rather than a torn write
+            throw new IllegalStateException("Unreadable journal payment record", e);
+        }
+    }
+
+    private Segment openSegment(int number) throws IOException {
+        Path file = directory.resolve(fileName(number, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(number, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+    }
+
+    private static String fileName(int number, String suffix) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, number, suffix);
+    }
+
+    private static int numberOf(String fileName) {
+        return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.indexOf('.')));
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+            retirer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int dirtyFrom = Integer.MAX_VALUE;
+        private int unprojected;
+
+        private Segment(int number, Path file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
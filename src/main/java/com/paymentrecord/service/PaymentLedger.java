@@ -0,0 +1,48 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The system of record for payments. Everything accepted is appended here
+ * first; the month sheets are a projection of it (see {@link SheetProjector})
+ * and can be rebuilt from it at any time.
+ */
+public interface PaymentLedger {
+
+    /**
+     * A payment in the ledger, with its ledger sequence number.
+     */
+    record Entry(long seq, PaymentRequest request) {
+    }
+
+    /**
+     * Appends a payment and returns its sequence number once it is durable.
+     */
+    long append(PaymentRequest request) throws IOException;
+
+    /**
+     * Appends several payments with a single durable sync, returning their
+     * sequence numbers in order.
+     */
+    List<Long> appendAll(List<PaymentRequest> requests) throws IOException;
+
+    /**
+     * Records that a payment has been written to its month sheet.
+     */
+    void markProjected(long seq) throws IOException;
+
+    /**
+     * Payments found at startup that were never projected, oldest first.
+     */
+    Collection<Entry> unprojected();
+
+    /**
+     * Visits every payment in the ledger in append order.
+     */
+    void forEach(Consumer<Entry> visitor) throws IOException;
+}
@@ -0,0 +1,130 @@
+package com.paymentrecord.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Meters for the payment hot path, registered with Micrometer and scraped
+ * from {@code /actuator/prometheus}.
+ *
+ * Timers and summaries publish p50/p90/p99 as {@code quantile} series,
+ * per instance; {@code management.metrics.distribution.percentiles-histogram}
+ * switches a meter to buckets for {@code histogram_quantile} instead.
+ * Meters are looked up once per tag value and then only recorded into.
+ * Sheets calls are also counted per thread, which lets
+ * {@link GoogleSheetService#saveBatch} report how many calls a batch cost.
+ */
+@Component
+public class PaymentMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private final MeterRegistry registry;
+    private final ThreadLocal<int[]> callsOnThread = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Map<String, Timer> sheetsCallTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> sheetsRequestSizes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> sheetsCallErrors = new ConcurrentHashMap<>();
+    private final Timer batchTimer;
+    private final DistributionSummary callsPerBatch;
+    private final Counter paymentsWritten;
+    private final Timer ledgerAppendTimer;
+    private final Timer saveTimer;
+
+    public PaymentMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.batchTimer = timer("paymentrecord.batch", "Time to write one batch of payments into the sheets")
+                .register(registry);
+        this.callsPerBatch = DistributionSummary.builder("paymentrecord.batch.sheets.calls")
+                .description("Sheets API calls made by one batch write")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        this.paymentsWritten = Counter.builder("paymentrecord.payments.written")
+                .description("Payments written into the sheets")
+                .register(registry);
+        this.ledgerAppendTimer = timer("paymentrecord.ledger.append",
+                "Time to make a payment durable in the ledger (the acknowledgement latency)")
+                .register(registry);
+        this.saveTimer = timer("paymentrecord.save", "Time from receiving a payment to its row being in the sheet")
+                .register(registry);
+    }
+
+    public void recordSheetsCall(String operation, long nanos, long requestBytes) {
+        sheetsCallTimers.computeIfAbsent(operation, op ->
+                        timer("paymentrecord.sheets.call", "Latency of each Sheets API call attempt, by operation")
+                                .tag("operation", op)
+                                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (requestBytes > 0) {
+            sheetsRequestSizes.computeIfAbsent(operation, op ->
+                            DistributionSummary.builder("paymentrecord.sheets.request")
+                                    .description("Request body size sent to the Sheets API, by operation")
+                                    .baseUnit("bytes")
+                                    .tag("operation", op)
+                                    .register(registry))
+                    .record(requestBytes);
+        }
+        callsOnThread.get()[0]++;
+    }
+
+    /**
+     * Records a failed attempt; {@code status} is the HTTP status, or -1 for
+     * an I/O error without a response.
+     */
+    public void recordSheetsError(String operation, int status) {
+        String statusTag = status == -1 ? "io" : String.valueOf(status);
+        sheetsCallErrors.computeIfAbsent(operation + '|' + statusTag, key ->
+                        Counter.builder("paymentrecord.sheets.call.errors")
+                                .description("Failed Sheets API call attempts, by operation and HTTP status (429 = quota)")
+                                .tag("operation", operation)
+                                .tag("status", statusTag)
+                                .register(registry))
+                .increment();
+    }
+
+    /**
+     * Sheets calls made on the current thread so far; the difference across
+     * a piece of work is what it cost.
+     */
+    public int sheetsCallsOnThread() {
+        return callsOnThread.get()[0];
+    }
+
+    public void recordBatch(int payments, int sheetsCalls, long nanos) {
+        batchTimer.record(nanos, TimeUnit.NANOSECONDS);
+        callsPerBatch.record(sheetsCalls);
+        paymentsWritten.increment(payments);
+    }
+
+    public void recordLedgerAppend(long nanos) {
+        ledgerAppendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSave(long nanos) {
+        saveTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers a gauge sampled on every scrape.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        Gauge.builder(name, value::getAsDouble)
+                .description(help)
+                .register(registry);
+    }
+
+    private static Timer.Builder timer(String name, String help) {
+        return Timer.builder(name)
+                .description(help)
+                .publishPercentiles(PERCENTILES);
+    }
+}
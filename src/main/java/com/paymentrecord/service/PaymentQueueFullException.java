@@ -0,0 +1,16 @@
+package com.paymentrecord.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the write-behind queue is at its configured depth (or shut
+ * down), so callers get a 503 and can retry instead of piling up memory.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentQueueFullException extends RuntimeException {
+
+    public PaymentQueueFullException(String message) {
+        super(message);
+    }
+}
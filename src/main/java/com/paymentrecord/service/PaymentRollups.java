@@ -0,0 +1,142 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentReportResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental payment counts and totals keyed by day x channel type x status.
+ *
+ * Channel and status are the case-folded {@link PaymentCodes} codes. Each
+ * (epoch day, channel, status) triple is the key of an open-addressing table:
+ * the day in an {@code int[]} and both codes, whole, packed into a
+ * {@code long[]}, so free-text channels and statuses can never collide.
+ * Count and paise are parallel {@code long[]} columns, so updates allocate
+ * nothing and a whole year is a few thousand slots. {@link PaymentIndex}
+ * feeds it: every indexed payment is added and every replaced or cleared one
+ * subtracted, so the rollups always match the index without reading Sheets.
+ */
+@Component
+public class PaymentRollups {
+
+    // CompactPayment.NO_DATE, which the index never holds, marks a free slot
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final PaymentCodes codes;
+
+    private int[] days = newDays(1024);
+    private long[] channelStatus = new long[1024];
+    private long[] counts = new long[1024];
+    private long[] paise = new long[1024];
+    private int size;
+
+    public PaymentRollups(PaymentCodes codes) {
+        this.codes = codes;
+    }
+
+    /**
+     * Adds ({@code sign} = 1) or removes ({@code sign} = -1) one payment.
+     */
+    synchronized void apply(CompactPayment payment, int sign) {
+        int slot = slotFor(payment.epochDay(), pack(codes.channels().folded(payment.channel()),
+                codes.statuses().folded(payment.status())));
+        counts[slot] += sign;
+        paise[slot] += payment.hasAmount() ? sign * payment.paise() : 0;
+    }
+
+    /**
+     * Rows for every day (or month) between {@code from} and {@code to}
+     * inclusive (either may be null), sorted by period, channel and status.
+     */
+    public synchronized PaymentReportResponse report(LocalDate from, LocalDate to, boolean monthly) {
+        long fromDay = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+        long toDay = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+
+        // period -> channel code -> status code -> {count, paise}
+        Map<String, Map<Integer, Map<Integer, long[]>>> grouped = new TreeMap<>();
+        for (int slot = 0; slot < days.length; slot++) {
+            int epochDay = days[slot];
+            if (epochDay == EMPTY || counts[slot] == 0) continue;
+            if (epochDay < fromDay || epochDay > toDay) continue;
+
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            String period = monthly ? YearMonth.from(day).toString() : day.toString();
+            long[] totals = grouped
+                    .computeIfAbsent(period, p -> new TreeMap<>())
+                    .computeIfAbsent(channelOf(channelStatus[slot]), c -> new TreeMap<>())
+                    .computeIfAbsent(statusOf(channelStatus[slot]), s -> new long[2]);
+            totals[0] += counts[slot];
+            totals[1] += paise[slot];
+        }
+
+        List<PaymentReportResponse.Row> rows = new ArrayList<>();
+        grouped.forEach((period, byChannel) -> byChannel.forEach((channel, byStatus) ->
+                byStatus.forEach((status, totals) -> rows.add(new PaymentReportResponse.Row(
+                        period, codes.channels().name(channel), codes.statuses().name(status),
+                        totals[0], Paise.toRupees(totals[1]))))));
+        return new PaymentReportResponse(monthly ? "month" : "day", rows);
+    }
+
+    // Both dictionary codes whole: channel in the high half, status in the low half
+    static long pack(int channel, int status) {
+        return ((long) channel << 32) | (status & 0xFFFFFFFFL);
+    }
+
+    static int channelOf(long channelStatus) {
+        return (int) (channelStatus >>> 32);
+    }
+
+    static int statusOf(long channelStatus) {
+        return (int) channelStatus;
+    }
+
+    private int slotFor(int epochDay, long pair) {
+        if (size * 2 >= days.length) grow();
+        int mask = days.length - 1;
+        int slot = mix(epochDay, pair) & mask;
+        while (days[slot] != EMPTY) {
+            if (days[slot] == epochDay && channelStatus[slot] == pair) return slot;
+            slot = (slot + 1) & mask;
+        }
+        days[slot] = epochDay;
+        channelStatus[slot] = pair;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldDays = days;
+        long[] oldPairs = channelStatus;
+        long[] oldCounts = counts;
+        long[] oldPaise = paise;
+        days = newDays(oldDays.length * 2);
+        channelStatus = new long[oldDays.length * 2];
+        counts = new long[oldDays.length * 2];
+        paise = new long[oldDays.length * 2];
+        size = 0;
+        for (int i = 0; i < oldDays.length; i++) {
+            if (oldDays[i] == EMPTY) continue;
+            int slot = slotFor(oldDays[i], oldPairs[i]);
+            counts[slot] = oldCounts[i];
+            paise[slot] = oldPaise[i];
+        }
+    }
+
+    private static int[] newDays(int capacity) {
+        int[] fresh = new int[capacity];
+        Arrays.fill(fresh, EMPTY);
+        return fresh;
+    }
+
+    private static int mix(int epochDay, long pair) {
+        long h = (pair ^ ((long) epochDay * 0xC2B2AE3D27D4EB4FL)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,58 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentStatusResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Remembers the status of asynchronously saved payments by payment ID.
+ * Only the most recent {@code paymentrecord.status.max-entries} are kept.
+ */
+@Component
+public class PaymentStatusTracker {
+
+    private final Map<String, PaymentStatusResponse> statuses;
+
+    public PaymentStatusTracker(@Value("${paymentrecord.status.max-entries:100000}") int maxEntries) {
+        this.statuses = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PaymentStatusResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Assigns a payment ID and follows the write until it completes.
+     */
+    public PaymentStatusResponse track(CompletableFuture<Integer> write) {
+        String paymentId = UUID.randomUUID().toString();
+        PaymentStatusResponse queued = new PaymentStatusResponse(paymentId, PaymentStatusResponse.QUEUED, null, null);
+        put(queued);
+
+        write.whenComplete((row, error) -> {
+            if (error == null) {
+                put(new PaymentStatusResponse(paymentId, PaymentStatusResponse.PERSISTED, row, null));
+            } else {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                        ? error.getCause() : error;
+                put(new PaymentStatusResponse(paymentId, PaymentStatusResponse.FAILED, null, cause.getMessage()));
+            }
+        });
+        return queued;
+    }
+
+    public synchronized PaymentStatusResponse get(String paymentId) {
+        return statuses.get(paymentId);
+    }
+
+    private synchronized void put(PaymentStatusResponse status) {
+        statuses.put(status.getPaymentId(), status);
+    }
+}
@@ -0,0 +1,259 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.PaymentRequest;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pulls payments one at a time from a JSON array, NDJSON or CSV body, so a
+ * bulk upload is never held in memory as a whole. A record that cannot be
+ * parsed is returned with an error instead of failing the whole stream.
+ */
+abstract class PaymentStreamReader implements AutoCloseable {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    /**
+     * One parsed record: either a request or the reason it was rejected.
+     */
+    record ParsedPayment(PaymentRequest request, String error) {
+    }
+
+    static PaymentStreamReader open(InputStream in, MediaType contentType, ObjectMapper mapper) throws IOException {
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return new NdjsonReader(in, mapper);
+        }
+        if (contentType != null && contentType.isCompatibleWith(TEXT_CSV)) {
+            return new CsvReader(in);
+        }
+        return new JsonArrayReader(in, mapper);
+    }
+
+    /**
+     * Returns the next record, or null at the end of the stream.
+     */
+    abstract ParsedPayment next() throws IOException;
+
+    /**
+     * A JSON array of payments. A syntax error cannot be skipped, so it is
+     * returned as the failing record and ends the stream; records before it
+     * are still imported.
+     */
+    private static final class JsonArrayReader extends PaymentStreamReader {
+        private final JsonParser parser;
+        private final ObjectMapper mapper;
+        private boolean broken;
+
+        JsonArrayReader(InputStream in, ObjectMapper mapper) throws IOException {
+            this.mapper = mapper;
+            this.parser = mapper.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of payments");
+            }
+        }
+
+        @Override
+        ParsedPayment next() throws IOException {
+            if (broken) return null;
+
+            // Read the element as a tree first, so a bad field only rejects this record
+            JsonNode node;
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) return null;
+                node = mapper.readTree(parser);
+            } catch (StreamReadException e) {
+                broken = true;
+                JsonLocation at = e.getLocation();
+                return new ParsedPayment(null, "Malformed JSON" + (at != null
+                        ? " at line " + at.getLineNr() + ", column " + at.getColumnNr() : "")
+                        + ", nothing after it was read: " + e.getOriginalMessage());
+            }
+            try {
+                return new ParsedPayment(mapper.treeToValue(node, PaymentRequest.class), null);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                return new ParsedPayment(null, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class NdjsonReader extends PaymentStreamReader {
+        private final BufferedReader reader;
+        private final ObjectMapper mapper;
+
+        NdjsonReader(InputStream in, ObjectMapper mapper) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            this.mapper = mapper;
+        }
+
+        @Override
+        ParsedPayment next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+
+            try {
+                return new ParsedPayment(mapper.readValue(line, PaymentRequest.class), null);
+            } catch (IOException e) {
+                return new ParsedPayment(null, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * CSV (RFC 4180) with a header row naming the PaymentRequest fields
+     * (date, channelType, userName, upiId, amount, status) in any order.
+     * Quoted fields may hold commas, {@code ""} and line breaks. Dates may
+     * be yyyy-MM-dd or dd-MM-yyyy.
+     */
+    private static final class CsvReader extends PaymentStreamReader {
+        private static final DateTimeFormatter SHEET_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final StringBuilder field = new StringBuilder();
+
+        CsvReader(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') reader.reset();
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IOException("CSV body has no header row");
+            }
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        @Override
+        ParsedPayment next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields == UNTERMINATED) {
+                return new ParsedPayment(null, "Unterminated quoted field at end of CSV body");
+            }
+            try {
+                PaymentRequest request = new PaymentRequest(
+                        parseDate(field(fields, "date")),
+                        field(fields, "channeltype"),
+                        field(fields, "username"),
+                        field(fields, "upiid"),
+                        parseAmount(field(fields, "amount")),
+                        field(fields, "status"));
+                request.setIdempotencyKey(field(fields, "idempotencykey"));
+                request.setClientReference(field(fields, "clientreference"));
+                return new ParsedPayment(request, null);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return new ParsedPayment(null, e.getMessage());
+            }
+        }
+
+        private String field(List<String> fields, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= fields.size()) return null;
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static LocalDate parseDate(String value) {
+            if (value == null) return null;
+            return value.length() == 10 && value.charAt(2) == '-'
+                    ? LocalDate.parse(value, SHEET_DATE)
+                    : LocalDate.parse(value);
+        }
+
+        private static Double parseAmount(String value) {
+            return value == null ? null : Double.valueOf(value.replace("₹", "").replace(",", ""));
+        }
+
+        // Marks a record cut off inside a quoted field by the end of the body
+        private static final List<String> UNTERMINATED = Collections.unmodifiableList(new ArrayList<>());
+
+        /**
+         * Reads one record, which ends at a line break outside quotes (LF or
+         * CRLF); returns null at the end of the body.
+         */
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) return null;
+
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            for (; ; c = reader.read()) {
+                if (quoted) {
+                    if (c == -1) return UNTERMINATED;
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') reader.reset();
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.PaymentRecordResponse;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes payments one at a time as NDJSON or CSV, the counterpart of
+ * {@link PaymentStreamReader}: an export can be fed back into
+ * {@code /payment/bulk} as it is. Nothing is held beyond the output buffer.
+ */
+abstract class PaymentStreamWriter {
+
+    static PaymentStreamWriter open(OutputStream out, MediaType format, ObjectMapper mapper) throws IOException {
+        if (format.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return new NdjsonWriter(out, mapper);
+        }
+        return new CsvWriter(out);
+    }
+
+    abstract void write(PaymentRecordResponse payment) throws IOException;
+
+    /**
+     * Pushes buffered records to the client; called after every page.
+     */
+    abstract void flush() throws IOException;
+
+    private static final class NdjsonWriter extends PaymentStreamWriter {
+        private final OutputStream out;
+        private final ObjectMapper mapper;
+
+        NdjsonWriter(OutputStream out, ObjectMapper mapper) {
+            this.out = out;
+            this.mapper = mapper;
+        }
+
+        @Override
+        void write(PaymentRecordResponse payment) throws IOException {
+            // writeValue(out, ...) would close the response stream after the first record
+            out.write(mapper.writeValueAsBytes(payment));
+            out.write('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * CSV with a header row; dates are yyyy-MM-dd and amounts plain rupees.
+     * The sheet and row columns are ignored on import.
+     */
+    private static final class CsvWriter extends PaymentStreamWriter {
+        private static final String HEADER = "date,channelType,userName,upiId,amount,status,sheet,row";
+
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(128);
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        void write(PaymentRecordResponse payment) throws IOException {
+            line.setLength(0);
+            line.append(payment.getDate()).append(',');
+            field(payment.getChannelType()).append(',');
+            field(payment.getUserName()).append(',');
+            field(payment.getUpiId()).append(',');
+            if (payment.getAmount() != null) {
+                Paise.appendTo(line, Paise.of(payment.getAmount()));
+            }
+            line.append(',');
+            field(payment.getStatus()).append(',');
+            field(payment.getSheet()).append(',').append(payment.getRow()).append('\n');
+            writer.append(line);
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        // Quotes a field holding a comma, quote or line break, doubling inner quotes
+        private StringBuilder field(String value) {
+            if (value == null) return line;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) return line.append(value);
+
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            return line.append('"');
+        }
+    }
+}
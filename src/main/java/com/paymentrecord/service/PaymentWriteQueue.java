@@ -0,0 +1,190 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind pipeline in front of the {@link MonthSheetWriters}.
+ *
+ * Incoming payments are queued and a single worker flushes them either when
+ * the batch window elapses or when the batch is full, so many payments share
+ * one round of Sheets calls. Each flush is split by month and posted to the
+ * month writers while the worker collects the next batch; up to
+ * {@code max-in-flight} flushes overlap, and each month's mailbox keeps its
+ * rows in arrival order. Anything still queued is flushed on shutdown.
+ */
+@Component
+public class PaymentWriteQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentWriteQueue.class);
+
+    private final MonthSheetWriters writers;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final BlockingQueue<PendingPayment> queue;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public PaymentWriteQueue(MonthSheetWriters writers, PaymentMetrics metrics,
+                             @Value("${paymentrecord.batch.window-ms:200}") long windowMillis,
+                             @Value("${paymentrecord.batch.max-size:100}") int maxBatchSize,
+                             @Value("${paymentrecord.batch.max-in-flight:4}") int maxInFlight,
+                             @Value("${paymentrecord.batch.max-queue-depth:10000}") int maxQueueDepth) {
+        this.writers = writers;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.queue = new LinkedBlockingQueue<>(maxQueueDepth);
+        metrics.gauge("paymentrecord.write.queue.depth", "Payments waiting for the next batch", this::depth);
+        metrics.gauge("paymentrecord.write.queue.outstanding", "Payments queued or being written", outstanding::get);
+    }
+
+    /**
+     * Queues a payment; the future completes with the assigned sheet row once
+     * its batch is in the sheet.
+     */
+    public CompletableFuture<Integer> submit(PaymentRequest request) {
+        if (!running) {
+            throw new PaymentQueueFullException("Payment queue is shut down");
+        }
+        PendingPayment pending = new PendingPayment(request, new CompletableFuture<>());
+        outstanding.incrementAndGet();
+        if (!queue.offer(pending)) {
+            outstanding.decrementAndGet();
+            throw new PaymentQueueFullException("Payment queue is full (" + queue.size() + " waiting)");
+        }
+        return pending.result();
+    }
+
+    /**
+     * Queues a payment, blocks until it has been written and returns its row.
+     */
+    public int savePayment(PaymentRequest request) throws Exception {
+        try {
+            return submit(request).get();
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof Exception cause) ? cause : e;
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Blocks until every payment submitted so far has been written (or has failed).
+     */
+    public void awaitIdle() throws InterruptedException {
+        while (outstanding.get() > 0) {
+            Thread.sleep(20);
+        }
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                List<PendingPayment> batch = new ArrayList<>();
+                batch.add(first);
+
+                // Keep collecting until the window closes or the batch is full
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingPayment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                // Bound the flushes in flight, then hand this one off
+                inFlight.acquire();
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+    }
+
+    private void flush(List<PendingPayment> batch) {
+        List<PaymentRequest> requests = new ArrayList<>(batch.size());
+        for (PendingPayment pending : batch) {
+            requests.add(pending.request());
+        }
+
+        // Months succeed or fail on their own; the month writers log failures
+        List<CompletableFuture<Integer>> rows = writers.write(requests);
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<Integer> result = batch.get(i).result();
+            rows.get(i).whenComplete((row, error) -> {
+                outstanding.decrementAndGet();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(row);
+                }
+            });
+        }
+        CompletableFuture.allOf(rows.toArray(new CompletableFuture[0]))
+                .whenComplete((done, error) -> inFlight.release());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "payment-write-queue");
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        // Flush-on-shutdown: stop accepting, then let the worker drain the queue
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Payment write queue drained");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the web server, so in-flight requests can still be flushed
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private record PendingPayment(PaymentRequest request, CompletableFuture<Integer> result) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.paymentrecord.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when rebuilding a sheet from the ledger would drop rows the ledger
+ * does not know about (e.g. written before the ledger existed).
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RebuildConflictException extends RuntimeException {
+
+    public RebuildConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,236 @@
+package com.paymentrecord.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What each fixed block of rows of a month sheet is expected to hold, as far
+ * as daily totals go: a checksum over the (row, date, amount) cells, and the
+ * amount and last row per date.
+ *
+ * A month is baselined from the same A:H read that hydrates its daily
+ * totals, and blocks of a baselined month that had no rows then start out
+ * empty; after that the save path adds every row it writes, so the
+ * expectation follows our own writes without reading. A block of a month
+ * that was never baselined (only after a reset) takes its first
+ * {@link SheetReconciler} read as its baseline. The checksum is a sum of
+ * per-row hashes, which makes adding a row O(1). When a later read no
+ * longer matches, the difference per date is drift from hand edits. Every
+ * write bumps the block's version first, so a read that overlapped one is
+ * thrown away rather than mistaken for an edit.
+ */
+@Component
+public class SheetBlockChecksums {
+
+    private final int blockRows;
+    private final Map<String, Map<Integer, Block>> bySheet = new HashMap<>();
+    private final Set<String> baselinedMonths = new HashSet<>();
+
+    public SheetBlockChecksums(@Value("${paymentrecord.reconcile.block-rows:500}") int blockRows) {
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * The change of one date's total found in a block.
+     */
+    public record Correction(String date, long deltaPaise) {
+    }
+
+    /**
+     * Where a date's last row is, across the partitions of its month.
+     */
+    public record LastRow(String sheetName, int row) {
+    }
+
+    /**
+     * A block's version as seen before reading it.
+     */
+    record Stamp(Block block, long version) {
+    }
+
+    int blockRows() {
+        return blockRows;
+    }
+
+    int firstRowOf(int block) {
+        return SheetLayout.FIRST_DATA_ROW + block * blockRows;
+    }
+
+    /**
+     * Baselines every block of a month from the A:H rows (header row
+     * included) of its partition sheets, replacing what was expected; an
+     * empty map baselines a month whose sheets were just cleared.
+     */
+    synchronized void baseline(String month, Map<String, List<List<Object>>> rowsBySheet) {
+        forget(month);
+        baselinedMonths.add(month);
+        rowsBySheet.forEach((sheetName, rows) -> {
+            for (int i = 1; i < rows.size(); i++) {
+                int row = i + 1;
+                block(sheetName, blockOf(row)).addRow(row, rows.get(i));
+            }
+        });
+    }
+
+    /**
+     * Marks the blocks of rows {@code firstRow}..{@code lastRow} as being
+     * written; called before the write goes out.
+     */
+    synchronized void touch(String sheetName, int firstRow, int lastRow) {
+        for (int block = blockOf(firstRow); block <= blockOf(lastRow); block++) {
+            block(sheetName, block).version++;
+        }
+    }
+
+    /**
+     * Adds rows written from {@code firstRow} on (A:H values) to the
+     * expectation of their blocks; called once the write succeeded.
+     */
+    synchronized void record(String sheetName, int firstRow, List<List<Object>> rows) {
+        for (int i = 0; i < rows.size(); i++) {
+            int row = firstRow + i;
+            Block block = block(sheetName, blockOf(row));
+            block.version++;
+            if (block.baselined) block.addRow(row, rows.get(i));
+        }
+    }
+
+    /**
+     * Forgets a month, e.g. after a failed write; it is baselined again when
+     * its daily totals are next hydrated.
+     */
+    synchronized void reset(String month) {
+        forget(month);
+    }
+
+    synchronized Stamp stamp(String sheetName, int block) {
+        Block current = block(sheetName, block);
+        return new Stamp(current, current.version);
+    }
+
+    /**
+     * Compares a block read with its expectation. Returns the corrections
+     * (none for an unchanged or newly baselined block), or null if the block
+     * was written or reset since {@code stamp} and the read must be retried.
+     * Dates and amounts are the A and E columns of the block, by row.
+     */
+    synchronized List<Correction> compare(String sheetName, int block, Stamp stamp,
+                                          List<List<Object>> dates, List<List<Object>> amounts) {
+        Map<Integer, Block> blocks = bySheet.get(sheetName);
+        if (blocks == null || blocks.get(block) != stamp.block() || stamp.block().version != stamp.version()) {
+            return null;
+        }
+
+        Block read = new Block();
+        int firstRow = firstRowOf(block);
+        for (int i = 0; i < dates.size(); i++) {
+            String date = cell(dates.get(i), 0);
+            if (date == null) continue;
+            long paise = i < amounts.size() && !amounts.get(i).isEmpty() ? Paise.of(amounts.get(i).get(0)) : 0;
+            read.add(firstRow + i, date, paise);
+        }
+
+        Block expected = stamp.block();
+        List<Correction> corrections = new ArrayList<>();
+        if (expected.baselined && expected.checksum != read.checksum) {
+            for (Map.Entry<String, Long> entry : read.paiseByDate.entrySet()) {
+                long delta = entry.getValue() - expected.paiseByDate.getOrDefault(entry.getKey(), 0L);
+                if (delta != 0) corrections.add(new Correction(entry.getKey(), delta));
+            }
+            for (Map.Entry<String, Long> entry : expected.paiseByDate.entrySet()) {
+                if (!read.paiseByDate.containsKey(entry.getKey()) && entry.getValue() != 0) {
+                    corrections.add(new Correction(entry.getKey(), -entry.getValue()));
+                }
+            }
+        }
+
+        expected.checksum = read.checksum;
+        expected.paiseByDate.clear();
+        expected.paiseByDate.putAll(read.paiseByDate);
+        expected.lastRowByDate.clear();
+        expected.lastRowByDate.putAll(read.lastRowByDate);
+        expected.baselined = true;
+        return corrections;
+    }
+
+    /**
+     * The last row of {@code date} in any partition of {@code month} as
+     * currently expected, or null if no block holds the date any more.
+     */
+    synchronized LastRow lastRowOf(String month, String date) {
+        LastRow last = null;
+        for (Map.Entry<String, Map<Integer, Block>> sheet : bySheet.entrySet()) {
+            if (!SheetLayout.monthOf(sheet.getKey()).equals(month)) continue;
+            int partition = SheetLayout.partitionOf(sheet.getKey());
+            for (Block block : sheet.getValue().values()) {
+                Integer row = block.lastRowByDate.get(date);
+                if (row == null) continue;
+                int lastPartition = last != null ? SheetLayout.partitionOf(last.sheetName()) : 0;
+                if (partition > lastPartition || (partition == lastPartition && row > last.row())) {
+                    last = new LastRow(sheet.getKey(), row);
+                }
+            }
+        }
+        return last;
+    }
+
+    private Block block(String sheetName, int block) {
+        return bySheet.computeIfAbsent(sheetName, name -> new HashMap<>())
+                .computeIfAbsent(block, b -> {
+                    Block created = new Block();
+                    created.baselined = baselinedMonths.contains(SheetLayout.monthOf(sheetName));
+                    return created;
+                });
+    }
+
+    // New Block objects also invalidate the stamps of reads still in flight
+    private void forget(String month) {
+        baselinedMonths.remove(month);
+        bySheet.keySet().removeIf(sheetName -> SheetLayout.monthOf(sheetName).equals(month));
+    }
+
+    private int blockOf(int row) {
+        return (row - SheetLayout.FIRST_DATA_ROW) / blockRows;
+    }
+
+    // SplitMix64 finaliser over the row's cells, so sums of hashes rarely collide
+    private static long hash(int row, String date, long paise) {
+        long h = ((long) row << 32) ^ date.hashCode() ^ (paise * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static String cell(List<Object> row, int column) {
+        if (column >= row.size() || row.get(column) == null) return null;
+        String value = row.get(column).toString().trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static final class Block {
+        private long version;
+        private boolean baselined;
+        private long checksum;
+        private final Map<String, Long> paiseByDate = new HashMap<>();
+        private final Map<String, Integer> lastRowByDate = new HashMap<>();
+
+        // Adds one row's A:H values; rows without a date do not count
+        private void addRow(int row, List<Object> values) {
+            String date = cell(values, 0);
+            if (date != null) add(row, date, Paise.of(values.size() > 4 ? values.get(4) : null));
+        }
+
+        private void add(int row, String date, long paise) {
+            checksum += hash(row, date, paise);
+            paiseByDate.merge(date, paise, Long::sum);
+            lastRowByDate.merge(date, row, Math::max);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.paymentrecord.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * Names and cell layout of the month sheets.
+ *
+ * A month's payments go to {@code Oct-2026}; once that sheet holds the
+ * configured maximum of rows they continue in {@code Oct-2026#2},
+ * {@code Oct-2026#3} and so on. Every partition has the same A-H columns.
+ * The month's per-date totals live in a separate {@code Oct-2026 Summary}
+ * tab: a title row, column headers, the grand total and then one row per
+ * date.
+ */
+final class SheetLayout {
+
+    static final String MONTH_SHEET_PATTERN = "[A-Za-z]{3}-\\d{4}(#\\d+)?"; // e.g. Oct-2026 or Oct-2026#2
+    static final DateTimeFormatter MONTH_SHEET_FORMAT = DateTimeFormatter.ofPattern("MMM-yyyy");
+
+    static final int DATA_COLUMNS = SheetTemplate.DATA_COLUMNS;
+    static final int FIRST_DATA_ROW = 2;
+
+    static final int SUMMARY_TITLE_ROW = 1;
+    static final int SUMMARY_GRAND_TOTAL_ROW = 3;
+    static final int SUMMARY_FIRST_DATE_ROW = 4;
+    static final String GRAND_TOTAL_FORMULA = "=SUM(B" + SUMMARY_FIRST_DATE_ROW + ":B)";
+
+    static final int LEGACY_SUMMARY_START_ROW = 100;
+    static final int LEGACY_SUMMARY_COLUMN_K = 10; // zero-based index of column K
+
+    private static final String SUMMARY_SUFFIX = " Summary";
+    private static final Pattern PLAIN_TITLE = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private SheetLayout() {
+    }
+
+    static String monthSheetName(LocalDate date) {
+        return date.format(MONTH_SHEET_FORMAT);
+    }
+
+    /**
+     * The first day of the month a sheet (any partition) belongs to.
+     */
+    static LocalDate monthStart(String sheetName) {
+        return YearMonth.parse(monthOf(sheetName), MONTH_SHEET_FORMAT).atDay(1);
+    }
+
+    /**
+     * {@code partition} 1 is the month sheet itself.
+     */
+    static String partitionName(String month, int partition) {
+        return partition == 1 ? month : month + "#" + partition;
+    }
+
+    static String monthOf(String sheetName) {
+        int hash = sheetName.indexOf('#');
+        return hash < 0 ? sheetName : sheetName.substring(0, hash);
+    }
+
+    static int partitionOf(String sheetName) {
+        int hash = sheetName.indexOf('#');
+        return hash < 0 ? 1 : Integer.parseInt(sheetName.substring(hash + 1));
+    }
+
+    /**
+     * Whether a sheet is wide enough to still hold a summary block of the
+     * old layout (J/K from row 100); sheets created with this layout are not.
+     */
+    static boolean mayHoldLegacySummary(int columnCount) {
+        return columnCount > LEGACY_SUMMARY_COLUMN_K;
+    }
+
+    static String summaryName(String month) {
+        return month + SUMMARY_SUFFIX;
+    }
+
+    /**
+     * An A1 range on a sheet, quoting titles such as {@code Oct-2026#2} or
+     * {@code Oct-2026 Summary}.
+     */
+    static String range(String sheetName, String cells) {
+        return (PLAIN_TITLE.matcher(sheetName).matches() ? sheetName : "'" + sheetName + "'") + "!" + cells;
+    }
+}
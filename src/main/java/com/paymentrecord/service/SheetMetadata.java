@@ -0,0 +1,20 @@
+package com.paymentrecord.service;
+
+/**
+ * Cached properties of one month sheet.
+ */
+public record SheetMetadata(int sheetId, String title, int rowCount, int columnCount,
+                            boolean summaryInitialized, boolean templated) {
+
+    public SheetMetadata withGrid(int rowCount, int columnCount) {
+        return new SheetMetadata(sheetId, title, rowCount, columnCount, summaryInitialized, templated);
+    }
+
+    public SheetMetadata withSummaryInitialized() {
+        return new SheetMetadata(sheetId, title, rowCount, columnCount, true, templated);
+    }
+
+    public SheetMetadata withTemplated() {
+        return new SheetMetadata(sheetId, title, rowCount, columnCount, summaryInitialized, true);
+    }
+}
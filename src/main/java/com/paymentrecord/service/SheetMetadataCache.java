@@ -0,0 +1,106 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process cache of sheet metadata keyed by sheet title.
+ *
+ * The spreadsheet is only read once (with a field mask) and again after
+ * {@link #invalidate()}; the service keeps entries current itself when it
+ * adds or resizes a sheet, so a normal save needs no metadata read. A read
+ * replaces every entry, and derives which sheets are ready from the sheet
+ * itself, so a restarted service can save to them without repairing first.
+ */
+@Component
+public class SheetMetadataCache {
+
+    static final String SHEET_FIELDS =
+            "sheets(properties(sheetId,title,gridProperties(rowCount,columnCount)),bandedRanges(bandedRangeId))";
+
+    private final SheetsCallExecutor calls;
+    private final Map<String, SheetMetadata> byTitle = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public SheetMetadataCache(SheetsCallExecutor calls) {
+        this.calls = calls;
+    }
+
+    /**
+     * Returns the cached metadata for a sheet, loading the spreadsheet once
+     * if needed. Returns null when the sheet does not exist.
+     */
+    public SheetMetadata get(Sheets sheets, String spreadsheetId, String title) throws Exception {
+        if (!loaded) {
+            refresh(sheets, spreadsheetId);
+        }
+        return byTitle.get(title);
+    }
+
+    /**
+     * Every sheet in the spreadsheet, loading it once if needed.
+     */
+    public Collection<SheetMetadata> all(Sheets sheets, String spreadsheetId) throws Exception {
+        if (!loaded) {
+            refresh(sheets, spreadsheetId);
+        }
+        return List.copyOf(byTitle.values());
+    }
+
+    public void put(SheetMetadata metadata) {
+        byTitle.put(metadata.title(), metadata);
+    }
+
+    /**
+     * Forces the next lookup to re-read the spreadsheet.
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private synchronized void refresh(Sheets sheets, String spreadsheetId) throws Exception {
+        if (loaded) return;
+
+        Spreadsheet spreadsheet = calls.execute(sheets.spreadsheets().get(spreadsheetId)
+                .setFields(SHEET_FIELDS));
+
+        Set<String> listed = new HashSet<>();
+        if (spreadsheet.getSheets() != null) {
+            for (Sheet sheet : spreadsheet.getSheets()) {
+                SheetMetadata fresh = toMetadata(sheet.getProperties());
+                if (sheet.getBandedRanges() != null && !sheet.getBandedRanges().isEmpty()) {
+                    fresh = fresh.withTemplated();
+                }
+                // A sheet too narrow for the old J/K block has none to move; keep what we learned about wider ones
+                SheetMetadata known = byTitle.get(fresh.title());
+                if (!SheetLayout.mayHoldLegacySummary(fresh.columnCount())
+                        || (known != null && known.summaryInitialized())) {
+                    fresh = fresh.withSummaryInitialized();
+                }
+                put(fresh);
+                listed.add(fresh.title());
+            }
+        }
+        // Sheets deleted by hand must not look provisioned
+        byTitle.keySet().retainAll(listed);
+        loaded = true;
+    }
+
+    static SheetMetadata toMetadata(SheetProperties properties) {
+        GridProperties grid = properties.getGridProperties();
+        int rows = (grid != null && grid.getRowCount() != null) ? grid.getRowCount() : 0;
+        int columns = (grid != null && grid.getColumnCount() != null) ? grid.getColumnCount() : 0;
+        return new SheetMetadata(properties.getSheetId(), properties.getTitle(), rows, columns, false, false);
+    }
+}
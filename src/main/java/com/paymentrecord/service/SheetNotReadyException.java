@@ -0,0 +1,17 @@
+package com.paymentrecord.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a save targets a month sheet that the
+ * {@link MonthSheetProvisioner} has not created or repaired yet. The sheet
+ * is provisioned in the background and the payments are projected on retry.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SheetNotReadyException extends RuntimeException {
+
+    public SheetNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,296 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Front door for payments: appends them to the {@link PaymentLedger} (the
+ * system of record), then projects them into the month sheets and marks
+ * them projected.
+ *
+ * Single saves go through the {@link PaymentWriteQueue}; bulk chunks go
+ * straight to the {@link MonthSheetWriters} so the caller gets rows back.
+ * Writes that fail (or find the queue full) stay unprojected and are
+ * retried on a timer, so a slow or unavailable Google API delays rows
+ * rather than losing them. On startup, unprojected ledger entries are
+ * projected again, and {@link #rebuild(YearMonth, boolean)} re-renders
+ * sheets from the ledger.
+ */
+@Component
+public class SheetProjector implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SheetProjector.class);
+
+    private final PaymentLedger ledger;
+    private final PaymentWriteQueue writeQueue;
+    private final MonthSheetWriters writers;
+    private final GoogleSheetService sheetService;
+    private final SheetsExecutor sheetsExecutor;
+    private final PaymentDedupeIndex dedupeIndex;
+    private final PaymentMetrics metrics;
+    private final long retryMillis;
+    private final Map<Long, PendingEntry> retries = new ConcurrentSkipListMap<>();
+
+    // Appends hold the read lock until dispatched; a rebuild takes the write lock to pause
+    private final ReadWriteLock intake = new ReentrantReadWriteLock();
+    private volatile boolean paused;
+    private volatile boolean running;
+    private ScheduledExecutorService retryTimer;
+
+    public SheetProjector(PaymentLedger ledger, PaymentWriteQueue writeQueue, MonthSheetWriters writers,
+                          GoogleSheetService sheetService, SheetsExecutor sheetsExecutor,
+                          PaymentDedupeIndex dedupeIndex, PaymentMetrics metrics,
+                          @Value("${paymentrecord.journal.retry-interval-ms:5000}") long retryMillis) {
+        this.ledger = ledger;
+        this.writeQueue = writeQueue;
+        this.writers = writers;
+        this.sheetService = sheetService;
+        this.sheetsExecutor = sheetsExecutor;
+        this.dedupeIndex = dedupeIndex;
+        this.metrics = metrics;
+        this.retryMillis = retryMillis;
+        metrics.gauge("paymentrecord.projection.backlog", "Recorded payments waiting for a projection retry",
+                this::backlog);
+    }
+
+    /**
+     * Records a payment and returns once it is durable in the ledger; the
+     * future completes with its sheet row once it has been projected. A
+     * duplicate of an earlier payment (same idempotency key) is not recorded
+     * again and gets the original's future instead.
+     */
+    public CompletableFuture<Integer> submit(PaymentRequest request) throws IOException {
+        String error = PaymentBulkImporter.validate(request);
+        if (error != null) {
+            throw new InvalidPaymentException(error);
+        }
+        if (!running) {
+            throw new PaymentQueueFullException("Payment ledger is shut down");
+        }
+
+        long received = System.nanoTime();
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        CompletableFuture<Integer> original = dedupeIndex.claim(request, result);
+        if (original != null) {
+            return original;
+        }
+
+        intake.readLock().lock();
+        try {
+            long seq;
+            try {
+                seq = ledger.append(request);
+            } catch (IOException e) {
+                dedupeIndex.release(request);
+                throw e;
+            }
+            dedupeIndex.commit(request);
+            metrics.recordLedgerAppend(System.nanoTime() - received);
+            dispatch(new PendingEntry(seq, request, result, received));
+        } finally {
+            intake.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Records a chunk of already validated and deduplicated payments and
+     * projects them straight away. Returns each payment's row, or null for
+     * payments that are recorded but whose projection was deferred.
+     */
+    public List<Integer> submitAll(List<PaymentRequest> requests) throws IOException {
+        long received = System.nanoTime();
+        List<PendingEntry> entries = new ArrayList<>(requests.size());
+        intake.readLock().lock();
+        try {
+            List<Long> seqs = ledger.appendAll(requests);
+            requests.forEach(dedupeIndex::commit);
+            for (int i = 0; i < requests.size(); i++) {
+                entries.add(new PendingEntry(seqs.get(i), requests.get(i), new CompletableFuture<>(), received));
+            }
+            if (paused) {
+                entries.forEach(entry -> retries.put(entry.seq(), entry));
+                return Arrays.asList(new Integer[requests.size()]);
+            }
+        } finally {
+            intake.readLock().unlock();
+        }
+
+        // Each month is written by its own writer; a failed month is deferred alone
+        List<CompletableFuture<Integer>> writes = writers.write(requests);
+        List<Integer> rows = new ArrayList<>(entries.size());
+        int deferred = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                Integer row = writes.get(i).join();
+                projected(entries.get(i), row);
+                rows.add(row);
+            } catch (CompletionException e) {
+                retries.put(entries.get(i).seq(), entries.get(i));
+                rows.add(null);
+                deferred++;
+            }
+        }
+        if (deferred > 0) {
+            log.warn("Deferring projection of {} of {} payments", deferred, entries.size());
+        }
+        return rows;
+    }
+
+    /**
+     * Re-renders the month sheets (one month, or every month in the ledger)
+     * from the ledger. New payments are recorded meanwhile but only
+     * projected once the rebuild is done. Returns the number of payments
+     * written.
+     */
+    public synchronized int rebuild(YearMonth month, boolean force) throws Exception {
+        intake.writeLock().lock();
+        try {
+            paused = true;
+        } finally {
+            intake.writeLock().unlock();
+        }
+
+        try {
+            // Let payments already handed to the queue land first
+            writeQueue.awaitIdle();
+
+            List<PaymentLedger.Entry> entries = new ArrayList<>();
+            ledger.forEach(entry -> {
+                if (month == null || YearMonth.from(entry.request().getDate()).equals(month)) {
+                    entries.add(entry);
+                }
+            });
+
+            List<PaymentRequest> requests = entries.stream().map(PaymentLedger.Entry::request).toList();
+            List<Integer> rows = sheetsExecutor.submit(() -> sheetService.rebuild(requests, force)).join();
+
+            // Everything else in the rebuild was projected (and marked) before the pause
+            for (int i = 0; i < entries.size(); i++) {
+                PendingEntry pending = retries.remove(entries.get(i).seq());
+                if (pending != null) {
+                    projected(pending, rows.get(i));
+                }
+            }
+            log.info("Rebuilt {} from {} ledger payments", month != null ? month : "all month sheets", entries.size());
+            return entries.size();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof Exception cause) ? cause : e;
+        } finally {
+            paused = false;
+        }
+    }
+
+    public int backlog() {
+        return retries.size();
+    }
+
+    private void dispatch(PendingEntry entry) {
+        if (paused) {
+            retries.put(entry.seq(), entry);
+            return;
+        }
+
+        CompletableFuture<Integer> write;
+        try {
+            write = writeQueue.submit(entry.request());
+        } catch (PaymentQueueFullException e) {
+            retries.put(entry.seq(), entry);
+            return;
+        }
+
+        write.whenComplete((row, error) -> {
+            if (error != null) {
+                retries.put(entry.seq(), entry);
+            } else {
+                projected(entry, row);
+            }
+        });
+    }
+
+    private void projected(PendingEntry entry, Integer row) {
+        try {
+            ledger.markProjected(entry.seq());
+        } catch (IOException e) {
+            // Only costs a repeated projection after a restart
+            log.warn("Could not mark ledger entry {} projected", entry.seq(), e);
+        }
+        if (entry.received() != 0) {
+            metrics.recordSave(System.nanoTime() - entry.received());
+        }
+        entry.result().complete(row);
+    }
+
+    private void retryPending() {
+        if (retries.isEmpty() || paused) return;
+
+        List<PendingEntry> due = new ArrayList<>(retries.values());
+        due.forEach(entry -> retries.remove(entry.seq()));
+        log.info("Retrying projection of {} payments", due.size());
+        due.forEach(this::dispatch);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sheet-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryTimer.scheduleWithFixedDelay(this::retryPending, retryMillis, retryMillis, TimeUnit.MILLISECONDS);
+
+        for (PaymentLedger.Entry unprojected : ledger.unprojected()) {
+            // Received before the restart, so no meaningful save latency
+            PendingEntry entry = new PendingEntry(unprojected.seq(), unprojected.request(), new CompletableFuture<>(), 0);
+            // Commits keys whose hash was lost between the append and the commit
+            if (dedupeIndex.claim(entry.request(), entry.result()) == null) {
+                dedupeIndex.commit(entry.request());
+            }
+            dispatch(entry);
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Anything not yet projected stays unprojected in the ledger for the next start
+        running = false;
+        retryTimer.shutdownNow();
+        if (!retries.isEmpty()) {
+            log.info("{} payments left to project on restart", retries.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // After the write queue starts, before the web server (DEFAULT_PHASE - 2048); stops in reverse
+        return DEFAULT_PHASE - 3072;
+    }
+
+    private record PendingEntry(long seq, PaymentRequest request, CompletableFuture<Integer> result, long received) {
+    }
+}
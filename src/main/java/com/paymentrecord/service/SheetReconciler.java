@@ -0,0 +1,138 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.paymentrecord.config.GoogleSheetConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the in-memory daily totals in line with hand edits to the month
+ * sheets (fixed amounts, added or cleared rows).
+ *
+ * Every run reads the date and amount columns (A and E, never the rest of
+ * A:H) of up to {@code blocks-per-run} row blocks in one values.batchGet,
+ * cycling through the written blocks of every month held in memory. A
+ * block whose checksum matches {@link SheetBlockChecksums} costs nothing
+ * more; otherwise only the dates whose amounts changed get their daily
+ * total cell and summary row rewritten. The Sheets API has no per-sheet
+ * modification time, so the checksums are the change signal.
+ */
+@Component
+public class SheetReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(SheetReconciler.class);
+
+    private final GoogleSheetConfig sheetConfig;
+    private final String spreadsheetId;
+    private final GoogleSheetService sheetService;
+    private final MonthSheetWriters writers;
+    private final SheetBlockChecksums checksums;
+    private final DailyTotalsStore dailyTotals;
+    private final SheetRowCursors rowCursors;
+    private final SheetsCallExecutor calls;
+    private final int blocksPerRun;
+    private int position;
+
+    public SheetReconciler(GoogleSheetConfig sheetConfig, GoogleSheetService sheetService, MonthSheetWriters writers,
+                           SheetBlockChecksums checksums, DailyTotalsStore dailyTotals,
+                           SheetRowCursors rowCursors, SheetsCallExecutor calls,
+                           @Value("${paymentrecord.reconcile.blocks-per-run:20}") int blocksPerRun) {
+        this.sheetConfig = sheetConfig;
+        this.spreadsheetId = sheetConfig.getSpreadsheetId();
+        this.sheetService = sheetService;
+        this.writers = writers;
+        this.checksums = checksums;
+        this.dailyTotals = dailyTotals;
+        this.rowCursors = rowCursors;
+        this.calls = calls;
+        this.blocksPerRun = blocksPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${paymentrecord.reconcile.interval-ms:60000}",
+            initialDelayString = "${paymentrecord.reconcile.interval-ms:60000}")
+    public void reconcile() {
+        try {
+            reconcileNextBlocks();
+        } catch (Exception e) {
+            log.warn("Sheet reconciliation skipped: {}", e.getMessage());
+        }
+    }
+
+    synchronized void reconcileNextBlocks() throws Exception {
+        Sheets sheets = sheetConfig.getSheetsService();
+        List<BlockRef> all = writtenBlocks(sheets);
+        if (all.isEmpty()) return;
+
+        // Continue where the last run stopped, wrapping around
+        List<BlockRef> due = new ArrayList<>();
+        for (int i = 0; i < Math.min(blocksPerRun, all.size()); i++) {
+            due.add(all.get((position + i) % all.size()));
+        }
+        position = (position + due.size()) % all.size();
+
+        List<SheetBlockChecksums.Stamp> stamps = new ArrayList<>();
+        List<String> ranges = new ArrayList<>();
+        for (BlockRef ref : due) {
+            stamps.add(checksums.stamp(ref.sheetName(), ref.block()));
+            int first = checksums.firstRowOf(ref.block());
+            int last = first + checksums.blockRows() - 1;
+            ranges.add(SheetLayout.range(ref.sheetName(), "A" + first + ":A" + last));
+            ranges.add(SheetLayout.range(ref.sheetName(), "E" + first + ":E" + last));
+        }
+        List<ValueRange> values = calls.execute(sheets.spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(ranges))
+                .getValueRanges();
+
+        Map<String, List<SheetBlockChecksums.Correction>> byMonth = new LinkedHashMap<>();
+        for (int i = 0; i < due.size(); i++) {
+            BlockRef ref = due.get(i);
+            List<SheetBlockChecksums.Correction> corrections = checksums.compare(ref.sheetName(), ref.block(),
+                    stamps.get(i), valuesOf(values.get(2 * i)), valuesOf(values.get(2 * i + 1)));
+            // null: written meanwhile, so the read may be torn; the block comes round again
+            if (corrections == null || corrections.isEmpty()) continue;
+            byMonth.computeIfAbsent(SheetLayout.monthOf(ref.sheetName()), k -> new ArrayList<>()).addAll(corrections);
+        }
+
+        // As the month's writer, so corrections never interleave with a save of that month
+        for (Map.Entry<String, List<SheetBlockChecksums.Correction>> entry : byMonth.entrySet()) {
+            writers.submit(entry.getKey(), () -> {
+                sheetService.correctDailyTotals(entry.getKey(), entry.getValue());
+                return null;
+            }).join();
+        }
+    }
+
+    // Blocks holding rows, of every partition of every month with totals in memory
+    private List<BlockRef> writtenBlocks(Sheets sheets) throws Exception {
+        List<BlockRef> blocks = new ArrayList<>();
+        List<String> months = new ArrayList<>(dailyTotals.months());
+        Collections.sort(months);
+        for (String month : months) {
+            for (String sheetName : sheetService.partitionsOf(sheets, month)) {
+                int nextRow = rowCursors.current(sheetName);
+                for (int block = 0; checksums.firstRowOf(block) < nextRow; block++) {
+                    blocks.add(new BlockRef(sheetName, block));
+                }
+            }
+        }
+        return blocks;
+    }
+
+    private static List<List<Object>> valuesOf(ValueRange range) {
+        return (range != null && range.getValues() != null) ? range.getValues() : Collections.emptyList();
+    }
+
+    private record BlockRef(String sheetName, int block) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Next free data row per month sheet, kept in memory.
+ *
+ * A cursor is seeded once (from column A, or directly for a sheet we just
+ * created) and then advanced locally, so saves no longer read the sheet to
+ * find where to write and two saves can never get the same row.
+ */
+@Component
+public class SheetRowCursors {
+
+    private static final int FIRST_DATA_ROW = 2;
+
+    private final SheetsCallExecutor calls;
+    private final Map<String, AtomicInteger> nextRowBySheet = new ConcurrentHashMap<>();
+
+    public SheetRowCursors(SheetsCallExecutor calls) {
+        this.calls = calls;
+    }
+
+    /**
+     * Reserves {@code count} consecutive rows and returns the first one.
+     */
+    public int allocate(Sheets sheets, String spreadsheetId, String sheetName, int count) throws Exception {
+        AtomicInteger cursor = nextRowBySheet.get(sheetName);
+        if (cursor == null) {
+            cursor = seedFromSheet(sheets, spreadsheetId, sheetName);
+        }
+        return cursor.getAndAdd(count);
+    }
+
+    /**
+     * The next free row, without reserving it.
+     */
+    public int peek(Sheets sheets, String spreadsheetId, String sheetName) throws Exception {
+        AtomicInteger cursor = nextRowBySheet.get(sheetName);
+        if (cursor == null) {
+            cursor = seedFromSheet(sheets, spreadsheetId, sheetName);
+        }
+        return cursor.get();
+    }
+
+    /**
+     * The next free row if the cursor is seeded, else -1; never reads.
+     */
+    public int current(String sheetName) {
+        AtomicInteger cursor = nextRowBySheet.get(sheetName);
+        return cursor != null ? cursor.get() : -1;
+    }
+
+    /**
+     * Starts the cursor of a freshly created sheet without reading it.
+     */
+    public void initialize(String sheetName) {
+        nextRowBySheet.put(sheetName, new AtomicInteger(FIRST_DATA_ROW));
+    }
+
+    /**
+     * Seeds a cursor from rows the caller has already read, unless one exists.
+     */
+    public void seed(String sheetName, int nextRow) {
+        nextRowBySheet.putIfAbsent(sheetName, new AtomicInteger(Math.max(nextRow, FIRST_DATA_ROW)));
+    }
+
+    /**
+     * Forgets a cursor so it is seeded from the sheet again on next use.
+     */
+    public void reset(String sheetName) {
+        nextRowBySheet.remove(sheetName);
+    }
+
+    private synchronized AtomicInteger seedFromSheet(Sheets sheets, String spreadsheetId, String sheetName) throws Exception {
+        AtomicInteger existing = nextRowBySheet.get(sheetName);
+        if (existing != null) return existing;
+
+        ValueRange response = calls.execute(sheets.spreadsheets().values()
+                .get(spreadsheetId, SheetLayout.range(sheetName, "A:A")));
+
+        int nextRow = (response.getValues() != null) ? response.getValues().size() + 1 : FIRST_DATA_ROW;
+        AtomicInteger cursor = new AtomicInteger(Math.max(nextRow, FIRST_DATA_ROW));
+        nextRowBySheet.put(sheetName, cursor);
+        return cursor;
+    }
+}
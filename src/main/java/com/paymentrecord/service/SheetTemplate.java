@@ -0,0 +1,187 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sheet-level formatting applied once when a month sheet is provisioned:
+ * header style, banded rows for the alternating colours, row borders and the
+ * currency format of the amount column. Rows inserted later inherit all of
+ * it, so saving a payment needs no formatting request.
+ */
+final class SheetTemplate {
+
+    static final int DATA_COLUMNS = 8; // A to H
+    static final String CURRENCY_PATTERN = "\"₹\"#,##0.00";
+
+    private static final Color HEADER_COLOR = new Color().setRed(0.2f).setGreen(0.4f).setBlue(0.6f);
+    private static final Color WHITE = new Color().setRed(1f).setGreen(1f).setBlue(1f);
+    private static final Color LIGHT_GREY = new Color().setRed(0.95f).setGreen(0.95f).setBlue(0.95f);
+    private static final Color BORDER_GREY = new Color().setRed(0.8f).setGreen(0.8f).setBlue(0.8f);
+
+    private SheetTemplate() {
+    }
+
+    /**
+     * Requests that provision a sheet with {@code rowCount} rows. With
+     * {@code migrate} set, per-row backgrounds written by older versions are
+     * cleared first so the banding shows through.
+     */
+    static List<Request> provision(int sheetId, int rowCount, boolean migrate) {
+        List<Request> requests = new ArrayList<>();
+
+        if (migrate) {
+            requests.add(new Request()
+                    .setRepeatCell(new RepeatCellRequest()
+                            .setRange(dataRange(sheetId, rowCount, 0, DATA_COLUMNS))
+                            .setCell(new CellData().setUserEnteredFormat(new CellFormat()))
+                            .setFields("userEnteredFormat.backgroundColor")));
+        }
+
+        requests.addAll(header(sheetId));
+
+        // Alternating row colours
+        requests.add(new Request()
+                .setAddBanding(new AddBandingRequest()
+                        .setBandedRange(new BandedRange()
+                                .setRange(new GridRange()
+                                        .setSheetId(sheetId)
+                                        .setStartRowIndex(0)
+                                        .setEndRowIndex(rowCount)
+                                        .setStartColumnIndex(0)
+                                        .setEndColumnIndex(DATA_COLUMNS))
+                                .setRowProperties(new BandingProperties()
+                                        .setHeaderColor(HEADER_COLOR)
+                                        .setFirstBandColor(LIGHT_GREY)
+                                        .setSecondBandColor(WHITE)))));
+
+        // Bottom border under every data row
+        Border rowBorder = new Border().setStyle("SOLID").setColor(BORDER_GREY);
+        requests.add(new Request()
+                .setUpdateBorders(new UpdateBordersRequest()
+                        .setRange(dataRange(sheetId, rowCount, 0, DATA_COLUMNS))
+                        .setInnerHorizontal(rowBorder)
+                        .setBottom(rowBorder)));
+
+        // Amount column formatting
+        requests.add(new Request()
+                .setRepeatCell(new RepeatCellRequest()
+                        .setRange(dataRange(sheetId, rowCount, 4, 5))
+                        .setCell(new CellData()
+                                .setUserEnteredFormat(new CellFormat()
+                                        .setNumberFormat(new NumberFormat()
+                                                .setType("CURRENCY")
+                                                .setPattern(CURRENCY_PATTERN))))
+                        .setFields("userEnteredFormat.numberFormat")));
+
+        return requests;
+    }
+
+    /**
+     * Header style for A-H and the frozen header row.
+     */
+    static List<Request> header(int sheetId) {
+        List<Request> requests = new ArrayList<>();
+
+        requests.add(new Request()
+                .setRepeatCell(new RepeatCellRequest()
+                        .setRange(new GridRange()
+                                .setSheetId(sheetId)
+                                .setStartRowIndex(0)
+                                .setEndRowIndex(1)
+                                .setStartColumnIndex(0)
+                                .setEndColumnIndex(DATA_COLUMNS))
+                        .setCell(new CellData()
+                                .setUserEnteredFormat(new CellFormat()
+                                        .setBackgroundColor(HEADER_COLOR)
+                                        .setTextFormat(new TextFormat()
+                                                .setBold(true)
+                                                .setFontSize(12)
+                                                .setForegroundColor(WHITE))
+                                        .setHorizontalAlignment("CENTER")))
+                        .setFields("userEnteredFormat")));
+
+        requests.add(new Request()
+                .setUpdateSheetProperties(new UpdateSheetPropertiesRequest()
+                        .setProperties(new SheetProperties()
+                                .setSheetId(sheetId)
+                                .setGridProperties(new GridProperties()
+                                        .setFrozenRowCount(1)))
+                        .setFields("gridProperties.frozenRowCount")));
+
+        return requests;
+    }
+
+    /**
+     * Rows added to a provisioned sheet of {@code rowCount} rows. They are
+     * inserted above the last row, which must still be empty, so they fall
+     * inside the banded range and copy the formats of the row above; rows
+     * appended below the grid would come without either.
+     */
+    static Request extend(int sheetId, int rowCount, int rows) {
+        return new Request()
+                .setInsertDimension(new InsertDimensionRequest()
+                        .setRange(new DimensionRange()
+                                .setSheetId(sheetId)
+                                .setDimension("ROWS")
+                                .setStartIndex(rowCount - 1)
+                                .setEndIndex(rowCount - 1 + rows))
+                        .setInheritFromBefore(true));
+    }
+
+    /**
+     * Summary title and grand-total styles of a summary tab (columns A-B).
+     */
+    static List<Request> summary(int sheetId, int titleRow, int grandTotalRow) {
+        List<Request> requests = new ArrayList<>();
+
+        requests.add(new Request()
+                .setRepeatCell(new RepeatCellRequest()
+                        .setRange(new GridRange()
+                                .setSheetId(sheetId)
+                                .setStartRowIndex(titleRow - 1)
+                                .setEndRowIndex(titleRow)
+                                .setStartColumnIndex(0)
+                                .setEndColumnIndex(2))
+                        .setCell(new CellData()
+                                .setUserEnteredFormat(new CellFormat()
+                                        .setBackgroundColor(new Color().setRed(0.8f).setGreen(0.4f).setBlue(0.2f))
+                                        .setTextFormat(new TextFormat()
+                                                .setBold(true)
+                                                .setFontSize(14)
+                                                .setForegroundColor(WHITE))
+                                        .setHorizontalAlignment("CENTER")))
+                        .setFields("userEnteredFormat")));
+
+        requests.add(new Request()
+                .setRepeatCell(new RepeatCellRequest()
+                        .setRange(new GridRange()
+                                .setSheetId(sheetId)
+                                .setStartRowIndex(grandTotalRow - 1)
+                                .setEndRowIndex(grandTotalRow)
+                                .setStartColumnIndex(0)
+                                .setEndColumnIndex(2))
+                        .setCell(new CellData()
+                                .setUserEnteredFormat(new CellFormat()
+                                        .setBackgroundColor(new Color().setRed(1f).setGreen(0.9f).setBlue(0f))
+                                        .setTextFormat(new TextFormat().setBold(true).setFontSize(12))
+                                        .setHorizontalAlignment("RIGHT")
+                                        .setNumberFormat(new NumberFormat()
+                                                .setType("CURRENCY")
+                                                .setPattern(CURRENCY_PATTERN))))
+                        .setFields("userEnteredFormat")));
+
+        return requests;
+    }
+
+    private static GridRange dataRange(int sheetId, int rowCount, int startColumn, int endColumn) {
+        return new GridRange()
+                .setSheetId(sheetId)
+                .setStartRowIndex(1)
+                .setEndRowIndex(rowCount)
+                .setStartColumnIndex(startColumn)
+                .setEndColumnIndex(endColumn);
+    }
+}
@@ -0,0 +1,55 @@
+package com.paymentrecord.service;
+
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.ValueRange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Collects every value write and spreadsheet request produced by one flush,
+ * so they go out as a single spreadsheets.batchUpdate plus a single
+ * values.batchUpdate.
+ */
+class SheetWriteBatch {
+
+    private final List<ValueRange> values = new ArrayList<>();
+    private final List<Request> requests = new ArrayList<>();
+
+    void addValues(String range, List<List<Object>> rows) {
+        values.add(new ValueRange().setRange(range).setValues(rows));
+    }
+
+    void addRequest(Request request) {
+        requests.add(request);
+    }
+
+    void addRequests(Collection<Request> more) {
+        requests.addAll(more);
+    }
+
+    boolean isEmpty() {
+        return values.isEmpty() && requests.isEmpty();
+    }
+
+    void execute(SheetsCallExecutor calls, Sheets sheets, String spreadsheetId) throws Exception {
+        // Structural requests first, so values can land in grid they add
+        if (!requests.isEmpty()) {
+            BatchUpdateSpreadsheetRequest body = new BatchUpdateSpreadsheetRequest()
+                    .setRequests(requests);
+            // Not idempotent (banding, appended rows), so never re-sent after a server error
+            calls.executeOnce(sheets.spreadsheets().batchUpdate(spreadsheetId, body));
+        }
+
+        if (!values.isEmpty()) {
+            BatchUpdateValuesRequest body = new BatchUpdateValuesRequest()
+                    .setValueInputOption("USER_ENTERED")
+                    .setData(values);
+            calls.execute(sheets.spreadsheets().values().batchUpdate(spreadsheetId, body));
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.paymentrecord.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every Sheets API call goes through here.
+ *
+ * Calls take a token from a read or write bucket sized to the project's
+ * per-minute quotas; a 429 halves that bucket's rate and successes slowly
+ * restore it. Quota (429) and server (5xx, I/O) errors are retried with
+ * exponential backoff and full jitter. After repeated failures a circuit
+ * breaker opens and callers wait for the cool-down instead of hammering
+ * Google, then a single probe call decides whether it closes again.
+ * Waiting happens on the calling (Sheets executor) thread, so an
+ * overloaded API slows the write queue down rather than failing payments.
+ * Every attempt is timed and counted in {@link PaymentMetrics}.
+ */
+@Component
+public class SheetsCallExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SheetsCallExecutor.class);
+
+    private final PaymentMetrics metrics;
+    private final Map<Class<?>, String> operations = new ConcurrentHashMap<>();
+    private final TokenBucket reads;
+    private final TokenBucket writes;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int breakerThreshold;
+    private final long breakerOpenMillis;
+
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean probing;
+
+    public SheetsCallExecutor(PaymentMetrics metrics,
+                              @Value("${paymentrecord.sheets.quota.reads-per-minute:60}") int readsPerMinute,
+                              @Value("${paymentrecord.sheets.quota.writes-per-minute:60}") int writesPerMinute,
+                              @Value("${paymentrecord.sheets.quota.burst:10}") int burst,
+                              @Value("${paymentrecord.sheets.retry.max-attempts:6}") int maxAttempts,
+                              @Value("${paymentrecord.sheets.retry.base-backoff-ms:500}") long baseBackoffMillis,
+                              @Value("${paymentrecord.sheets.retry.max-backoff-ms:32000}") long maxBackoffMillis,
+                              @Value("${paymentrecord.sheets.breaker.failure-threshold:5}") int breakerThreshold,
+                              @Value("${paymentrecord.sheets.breaker.open-ms:30000}") long breakerOpenMillis) {
+        this.metrics = metrics;
+        this.reads = new TokenBucket("read", readsPerMinute, burst);
+        this.writes = new TokenBucket("write", writesPerMinute, burst);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.breakerThreshold = breakerThreshold;
+        this.breakerOpenMillis = breakerOpenMillis;
+        metrics.gauge("paymentrecord.sheets.circuit.open", "1 while the Sheets circuit breaker is open",
+                () -> isCircuitOpen() ? 1 : 0);
+    }
+
+    /**
+     * Executes an idempotent call (any read, or a values write to fixed
+     * ranges), retrying quota, server and I/O errors.
+     */
+    public <T> T execute(AbstractGoogleClientRequest<T> request) throws IOException {
+        return execute(request, true);
+    }
+
+    /**
+     * Executes a call that must not be applied twice (adding sheets or
+     * banding). Only 429s are retried, since Google rejected those before
+     * applying anything.
+     */
+    public <T> T executeOnce(AbstractGoogleClientRequest<T> request) throws IOException {
+        return execute(request, false);
+    }
+
+    private <T> T execute(AbstractGoogleClientRequest<T> request, boolean idempotent) throws IOException {
+        TokenBucket bucket = "GET".equals(request.getRequestMethod()) ? reads : writes;
+        String operation = operations.computeIfAbsent(request.getClass(), SheetsCallExecutor::operationOf);
+        long requestBytes = request.getHttpContent() != null ? request.getHttpContent().getLength() : 0;
+
+        for (int attempt = 1; ; attempt++) {
+            boolean probe = awaitCircuit();
+            bucket.acquire();
+            long start = System.nanoTime();
+            try {
+                T result = request.execute();
+                metrics.recordSheetsCall(operation, System.nanoTime() - start, requestBytes);
+                bucket.recover();
+                onSuccess();
+                return result;
+            } catch (IOException e) {
+                metrics.recordSheetsCall(operation, System.nanoTime() - start, requestBytes);
+                int status = (e instanceof GoogleJsonResponseException response) ? response.getStatusCode() : -1;
+                metrics.recordSheetsError(operation, status);
+                boolean quota = status == 429;
+                boolean transientError = quota || status >= 500 || status == -1;
+                if (!transientError) {
+                    // Google answered; the call itself is wrong, which says nothing about its health
+                    if (probe) onSuccess();
+                    throw e;
+                }
+
+                if (quota) bucket.throttle();
+                onFailure(probe);
+                if (attempt >= maxAttempts || (!idempotent && !quota)) throw e;
+
+                long delay = backoff(attempt);
+                log.warn("Sheets {} failed ({}), retry {}/{} in {} ms",
+                        operation, status == -1 ? e.getClass().getSimpleName() : status,
+                        attempt, maxAttempts - 1, delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    // e.g. Sheets.Spreadsheets.Values.BatchGet -> "spreadsheets.values.batchGet"
+    private static String operationOf(Class<?> requestClass) {
+        String[] parts = requestClass.getName().substring(requestClass.getName().lastIndexOf('.') + 1).split("\\$");
+        StringBuilder operation = new StringBuilder();
+        for (int i = 1; i < parts.length; i++) {
+            if (operation.length() > 0) operation.append('.');
+            operation.append(Character.toLowerCase(parts[i].charAt(0))).append(parts[i], 1, parts[i].length());
+        }
+        return operation.length() > 0 ? operation.toString() : requestClass.getSimpleName();
+    }
+
+    // Full jitter: uniform in [0, min(cap, base * 2^(attempt - 1))]
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Blocks while the breaker is open. Returns true if the caller is the
+     * half-open probe.
+     */
+    private synchronized boolean awaitCircuit() throws InterruptedIOException {
+        while (true) {
+            long waitNanos = openUntilNanos - System.nanoTime();
+            if (openUntilNanos == 0) return false;
+            if (waitNanos <= 0 && !probing) {
+                probing = true;
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos > 0 ? waitNanos : TimeUnit.MILLISECONDS.toNanos(100));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while Sheets circuit is open");
+            }
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (openUntilNanos != 0) {
+            log.info("Sheets circuit closed");
+        }
+        consecutiveFailures = 0;
+        openUntilNanos = 0;
+        probing = false;
+        notifyAll();
+    }
+
+    private synchronized void onFailure(boolean probe) {
+        consecutiveFailures++;
+        if (probe || consecutiveFailures >= breakerThreshold) {
+            if (!probe) {
+                log.warn("Sheets circuit opened after {} consecutive failures", consecutiveFailures);
+            }
+            openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(breakerOpenMillis);
+            probing = false;
+            notifyAll();
+        }
+    }
+
+    public synchronized boolean isCircuitOpen() {
+        return openUntilNanos != 0;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during Sheets backoff");
+        }
+    }
+
+    /**
+     * Token bucket with additive-increase / multiplicative-decrease on its
+     * refill rate: halved on every 429, nudged back up on every success.
+     */
+    private static final class TokenBucket {
+        private final String name;
+        private final double maxPerNano;
+        private final double minPerNano;
+        private final double capacity;
+        private double perNano;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(String name, int perMinute, int burst) {
+            this.name = name;
+            this.maxPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.minPerNano = maxPerNano / 16;
+            this.capacity = Math.max(1, burst);
+            this.perNano = maxPerNano;
+            this.tokens = capacity;
+        }
+
+        private void acquire() throws InterruptedIOException {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                tokens -= 1;
+                // Negative balance = queued callers; each sleeps for its own slot
+                waitNanos = tokens >= 0 ? 0 : (long) (-tokens / perNano);
+            }
+            if (waitNanos > 0) {
+                sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            }
+        }
+
+        private synchronized void throttle() {
+            refill();
+            double slower = Math.max(minPerNano, perNano / 2);
+            if (slower < perNano) {
+                perNano = slower;
+                log.warn("Sheets {} quota exceeded, pacing at {} calls/min", name,
+                        Math.round(perNano * TimeUnit.MINUTES.toNanos(1)));
+            }
+        }
+
+        private synchronized void recover() {
+            perNano = Math.min(maxPerNano, perNano + maxPerNano / 20);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * perNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.paymentrecord.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs outbound Sheets work off the request threads, with at most
+ * {@code paymentrecord.sheets.max-concurrency} tasks talking to Google at
+ * once.
+ *
+ * On a Java 21+ runtime every task gets its own virtual thread, so callers
+ * waiting for a permit cost almost nothing; on older runtimes a fixed pool
+ * of that size is used instead.
+ */
+@Component
+public class SheetsExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SheetsExecutor.class);
+
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public SheetsExecutor(PaymentMetrics metrics,
+                          @Value("${paymentrecord.sheets.max-concurrency:8}") int maxConcurrency) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = newExecutor(maxConcurrency);
+        metrics.gauge("paymentrecord.sheets.tasks.active", "Sheets tasks currently holding a concurrency permit",
+                () -> maxConcurrency - permits.availablePermits());
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+                try {
+                    result.complete(task.call());
+                } finally {
+                    permits.release();
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads unavailable, using {} platform threads for Sheets calls", maxConcurrency);
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "sheets-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+package com.paymentrecord.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the monthly summary block: date -> summary row, per
+ * month sheet.
+ *
+ * With it a changed total becomes a single-cell write and a new date a
+ * single-row append, instead of reading and rewriting the whole block.
+ */
+@Component
+public class SummaryIndex {
+
+    static final String GRAND_TOTAL_LABEL = "Grand Total:";
+
+    private final Map<String, SheetSummary> bySheet = new ConcurrentHashMap<>();
+
+    public boolean isHydrated(String sheetName) {
+        return bySheet.containsKey(sheetName);
+    }
+
+    /**
+     * Indexes the summary rows read from the sheet, starting at {@code firstRow}.
+     * Returns the row of the "Grand Total:" line, or -1 if there is none.
+     */
+    public int hydrate(String sheetName, int firstRow, List<List<Object>> rows) {
+        SheetSummary summary = new SheetSummary(firstRow);
+        int grandTotalRow = -1;
+
+        for (int i = 0; i < rows.size(); i++) {
+            List<Object> row = rows.get(i);
+            if (row.isEmpty() || row.get(0) == null || row.get(0).toString().isEmpty()) continue;
+
+            int sheetRow = firstRow + i;
+            String label = row.get(0).toString();
+            if (GRAND_TOTAL_LABEL.equals(label)) {
+                grandTotalRow = sheetRow;
+            } else {
+                summary.rowByDate.put(label, sheetRow);
+            }
+            summary.nextRow = Math.max(summary.nextRow, sheetRow + 1);
+        }
+
+        bySheet.put(sheetName, summary);
+        return grandTotalRow;
+    }
+
+    /**
+     * Starts an empty index for a freshly written summary block.
+     */
+    public void initialize(String sheetName, int firstDateRow) {
+        bySheet.put(sheetName, new SheetSummary(firstDateRow));
+    }
+
+    /**
+     * Returns the summary row of a date, or -1 if the date is not listed yet.
+     */
+    public int rowOf(String sheetName, String date) {
+        SheetSummary summary = bySheet.get(sheetName);
+        if (summary == null) return -1;
+        return summary.rowByDate.getOrDefault(date, -1);
+    }
+
+    /**
+     * Reserves the next free summary row for a new date.
+     */
+    public int append(String sheetName, String date) {
+        SheetSummary summary = bySheet.get(sheetName);
+        int row = summary.nextRow++;
+        summary.rowByDate.put(date, row);
+        return row;
+    }
+
+    public void reset(String sheetName) {
+        bySheet.remove(sheetName);
+    }
+
+    private static final class SheetSummary {
+        private final Map<String, Integer> rowByDate = new HashMap<>();
+        private int nextRow;
+
+        private SheetSummary(int nextRow) {
+            this.nextRow = nextRow;
+        }
+    }
+}
@@ -2,10 +2,21 @@ package com.paymentrecord;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
 
 @SpringBootTest
 class PaymentrecordApplicationTests {
 
+	@DynamicPropertySource
+	static void dataDir(DynamicPropertyRegistry registry) throws IOException {
+		String dataDir = Files.createTempDirectory("paymentrecord").toString();
+		registry.add("paymentrecord.data-dir", () -> dataDir);
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,73 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process {@link HttpTransport} answering Sheets calls from a
+ * {@link FakeSpreadsheet}. Requests Sheets would reject come back as 400s,
+ * and {@link #failNext(String)} turns the next call of an operation into a
+ * 503, so tests can fail a batch half way through its calls.
+ */
+final class FakeSheetsTransport extends HttpTransport {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final FakeSpreadsheet spreadsheet = new FakeSpreadsheet();
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    FakeSpreadsheet spreadsheet() {
+        return spreadsheet;
+    }
+
+    /**
+     * Fails the next call whose URL ends in {@code operation}, e.g.
+     * {@code values:batchUpdate}.
+     */
+    void failNext(String operation) {
+        failures.add(operation);
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                List<String> path = new GenericUrl(url).getPathParts();
+                String operation = path.get(path.size() - 1);
+                if (failures.remove(operation)) {
+                    return error(503, "The service is currently unavailable.");
+                }
+
+                String content = getContentAsString();
+                JsonNode body = content == null || content.isEmpty() ? json.createObjectNode() : json.readTree(content);
+                try {
+                    return new MockLowLevelHttpResponse()
+                            .setStatusCode(200)
+                            .setContentType("application/json; charset=UTF-8")
+                            .setContent(json.writeValueAsBytes(spreadsheet.handle(method, new GenericUrl(url), body)));
+                } catch (IllegalArgumentException e) {
+                    return error(400, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private MockLowLevelHttpResponse error(int status, String message) throws IOException {
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(status)
+                .setContentType("application/json; charset=UTF-8")
+                .setContent(json.writeValueAsBytes(Map.of("error",
+                        Map.of("code", status, "message", message, "errors", List.of(Map.of("message", message))))));
+    }
+}
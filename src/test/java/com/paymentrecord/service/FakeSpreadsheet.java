@@ -0,0 +1,300 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.api.client.http.GenericUrl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory spreadsheet answering the Sheets v4 endpoints the service uses:
+ * the spreadsheet metadata get, spreadsheets.batchUpdate (addSheet, grid
+ * changes, banding) and values get / batchGet / batchUpdate / batchClear.
+ *
+ * Cells are kept as the strings Sheets would return as formatted values.
+ * Like Sheets, values written below the last row of a grid are rejected,
+ * so tests notice a grid that was not grown ahead of its rows.
+ */
+final class FakeSpreadsheet {
+
+    private static final Pattern A1 = Pattern.compile("^([A-Z]+)?(\\d+)?(?::([A-Z]+)?(\\d+)?)?$");
+    private static final int COLUMNS = 26;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<String, FakeSheet> sheets = new LinkedHashMap<>();
+    private int nextSheetId = 100;
+
+    /**
+     * Answers one call. Throws IllegalArgumentException for requests Sheets
+     * would reject with a 400, such as a range on a missing sheet.
+     */
+    synchronized JsonNode handle(String method, GenericUrl url, JsonNode body) {
+        // /v4/spreadsheets/{id}[:batchUpdate] or /v4/spreadsheets/{id}/values[:op | /{range}]
+        List<String> parts = url.getPathParts();
+        int id = parts.indexOf("spreadsheets") + 1;
+        String target = parts.get(id);
+        String rest = String.join("/", parts.subList(id + 1, parts.size()));
+
+        if (target.endsWith(":batchUpdate")) return batchUpdate(body);
+        if (rest.isEmpty()) return spreadsheet();
+        if (rest.equals("values:batchGet")) {
+            ArrayNode ranges = json.createArrayNode();
+            for (Object range : url.getAll("ranges")) {
+                ranges.add(read(range.toString()));
+            }
+            return json.createObjectNode().set("valueRanges", ranges);
+        }
+        if (rest.equals("values:batchUpdate")) {
+            for (JsonNode data : body.path("data")) {
+                write(data.get("range").asText(), data.path("values"));
+            }
+            return json.createObjectNode();
+        }
+        if (rest.equals("values:batchClear")) {
+            for (JsonNode range : body.path("ranges")) {
+                clear(range.asText());
+            }
+            return json.createObjectNode();
+        }
+        if (rest.startsWith("values/") && method.equals("GET")) {
+            return read(rest.substring("values/".length()));
+        }
+        throw new IllegalArgumentException("Fake Sheets does not support " + method + " " + url.getRawPath());
+    }
+
+    /**
+     * Deletes a sheet the way someone editing the spreadsheet by hand would.
+     */
+    synchronized void deleteSheet(String title) {
+        sheet(title);
+        sheets.remove(title);
+    }
+
+    synchronized int rowCount(String title) {
+        return sheet(title).rowCount;
+    }
+
+    /**
+     * The formatted values of one row (1-based), without trailing empty cells.
+     */
+    synchronized List<String> row(String title, int row) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode cell : read(title + "!A" + row + ":Z" + row).path("values").path(0)) {
+            values.add(cell.asText());
+        }
+        return values;
+    }
+
+    private JsonNode spreadsheet() {
+        ArrayNode list = json.createArrayNode();
+        sheets.forEach((title, sheet) -> {
+            ObjectNode entry = list.addObject();
+            entry.set("properties", properties(title, sheet));
+            if (sheet.banded) {
+                entry.putArray("bandedRanges").addObject().put("bandedRangeId", sheet.id);
+            }
+        });
+        return json.createObjectNode().set("sheets", list);
+    }
+
+    private JsonNode batchUpdate(JsonNode body) {
+        ArrayNode replies = json.createArrayNode();
+        for (JsonNode request : body.path("requests")) {
+            ObjectNode reply = replies.addObject();
+            if (request.has("addSheet")) {
+                JsonNode properties = request.get("addSheet").get("properties");
+                JsonNode grid = properties.path("gridProperties");
+                FakeSheet sheet = new FakeSheet(nextSheetId++, grid.path("rowCount").asInt(1000),
+                        grid.path("columnCount").asInt(COLUMNS));
+                String title = properties.get("title").asText();
+                sheets.put(title, sheet);
+                reply.putObject("addSheet").set("properties", properties(title, sheet));
+            } else if (request.has("updateSheetProperties")) {
+                JsonNode properties = request.get("updateSheetProperties").get("properties");
+                FakeSheet sheet = byId(properties.get("sheetId").asInt());
+                JsonNode grid = properties.path("gridProperties");
+                sheet.rowCount = grid.path("rowCount").asInt(sheet.rowCount);
+                sheet.columnCount = grid.path("columnCount").asInt(sheet.columnCount);
+            } else if (request.has("appendDimension")) {
+                JsonNode append = request.get("appendDimension");
+                FakeSheet sheet = byId(append.get("sheetId").asInt());
+                if (append.path("dimension").asText().equals("ROWS")) {
+                    sheet.rowCount += append.get("length").asInt();
+                } else {
+                    sheet.columnCount += append.get("length").asInt();
+                }
+            } else if (request.has("insertDimension")) {
+                JsonNode range = request.get("insertDimension").get("range");
+                FakeSheet sheet = byId(range.get("sheetId").asInt());
+                int start = range.get("startIndex").asInt();
+                int length = range.get("endIndex").asInt() - start;
+                if (range.path("dimension").asText().equals("ROWS")) {
+                    for (int i = 0; i < length && start < sheet.rows.size(); i++) sheet.rows.add(start, null);
+                    sheet.rowCount += length;
+                } else {
+                    sheet.columnCount += length;
+                }
+            } else if (request.has("updateCells")) {
+                // Only sent without rows, i.e. to clear a block
+                JsonNode range = request.get("updateCells").get("range");
+                FakeSheet sheet = byId(range.get("sheetId").asInt());
+                int lastRow = Math.min(range.path("endRowIndex").asInt(sheet.rowCount), sheet.rows.size());
+                for (int row = range.path("startRowIndex").asInt(0); row < lastRow; row++) {
+                    String[] cells = sheet.rows.get(row);
+                    if (cells == null) continue;
+                    int lastColumn = Math.min(range.path("endColumnIndex").asInt(COLUMNS), COLUMNS);
+                    for (int column = range.path("startColumnIndex").asInt(0); column < lastColumn; column++) {
+                        cells[column] = null;
+                    }
+                }
+            } else if (request.has("addBanding")) {
+                byId(request.get("addBanding").get("bandedRange").get("range").get("sheetId").asInt()).banded = true;
+            }
+            // Formatting requests only change how cells look, which the fake does not keep
+        }
+        return json.createObjectNode().set("replies", replies);
+    }
+
+    private ObjectNode read(String range) {
+        Range r = Range.parse(range);
+        FakeSheet sheet = sheet(r.title);
+
+        ArrayNode values = json.createArrayNode();
+        int lastRow = Math.min(r.lastRow, sheet.rows.size() - 1);
+        int pendingEmpty = 0;
+        for (int row = r.firstRow; row <= lastRow; row++) {
+            String[] cells = sheet.rows.get(row);
+            int end = -1;
+            if (cells != null) {
+                for (int column = Math.min(r.lastColumn, COLUMNS - 1); column >= r.firstColumn; column--) {
+                    if (cells[column] != null) {
+                        end = column;
+                        break;
+                    }
+                }
+            }
+            if (end < 0) {
+                pendingEmpty++;
+                continue;
+            }
+            // Empty rows only show up between rows that have values
+            for (; pendingEmpty > 0; pendingEmpty--) values.addArray();
+            ArrayNode out = values.addArray();
+            for (int column = r.firstColumn; column <= end; column++) {
+                out.add(cells[column] != null ? cells[column] : "");
+            }
+        }
+
+        ObjectNode result = json.createObjectNode().put("range", range).put("majorDimension", "ROWS");
+        if (!values.isEmpty()) result.set("values", values);
+        return result;
+    }
+
+    private void write(String range, JsonNode values) {
+        Range r = Range.parse(range);
+        FakeSheet sheet = sheet(r.title);
+        int row = r.firstRow;
+        if (row + values.size() > sheet.rowCount) {
+            throw new IllegalArgumentException("Range (" + range + ") exceeds grid limits. Max rows: "
+                    + sheet.rowCount);
+        }
+        for (JsonNode rowValues : values) {
+            while (sheet.rows.size() <= row) sheet.rows.add(null);
+            String[] cells = sheet.rows.get(row);
+            if (cells == null) {
+                cells = new String[COLUMNS];
+                sheet.rows.set(row, cells);
+            }
+            int column = r.firstColumn;
+            for (JsonNode value : rowValues) {
+                String text = value.isNull() ? null : value.asText();
+                cells[column++] = text == null || text.isEmpty() ? null : text;
+            }
+            row++;
+        }
+    }
+
+    private void clear(String range) {
+        Range r = Range.parse(range);
+        FakeSheet sheet = sheet(r.title);
+        int lastRow = Math.min(r.lastRow, sheet.rows.size() - 1);
+        for (int row = r.firstRow; row <= lastRow; row++) {
+            String[] cells = sheet.rows.get(row);
+            if (cells == null) continue;
+            for (int column = r.firstColumn; column <= Math.min(r.lastColumn, COLUMNS - 1); column++) {
+                cells[column] = null;
+            }
+        }
+    }
+
+    private FakeSheet sheet(String title) {
+        FakeSheet sheet = sheets.get(title);
+        if (sheet == null) throw new IllegalArgumentException("Unable to parse range: " + title);
+        return sheet;
+    }
+
+    private FakeSheet byId(int sheetId) {
+        return sheets.values().stream()
+                .filter(sheet -> sheet.id == sheetId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No sheet with id " + sheetId));
+    }
+
+    private ObjectNode properties(String title, FakeSheet sheet) {
+        ObjectNode properties = json.createObjectNode().put("sheetId", sheet.id).put("title", title);
+        properties.putObject("gridProperties")
+                .put("rowCount", sheet.rowCount)
+                .put("columnCount", sheet.columnCount);
+        return properties;
+    }
+
+    private static final class FakeSheet {
+        private final int id;
+        private int rowCount;
+        private int columnCount;
+        private boolean banded;
+        private final List<String[]> rows = new ArrayList<>();
+
+        private FakeSheet(int id, int rowCount, int columnCount) {
+            this.id = id;
+            this.rowCount = rowCount;
+            this.columnCount = columnCount;
+        }
+    }
+
+    // Zero-based, inclusive bounds of an A1 range such as Oct-2026!A2:H57, Oct-2026!G9 or Oct-2026!A:H
+    private record Range(String title, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+
+        static Range parse(String range) {
+            int bang = range.lastIndexOf('!');
+            String title = (bang < 0 ? range : range.substring(0, bang)).replace("'", "");
+            String cells = bang < 0 ? "A1:Z" : range.substring(bang + 1);
+            Matcher m = A1.matcher(cells);
+            if (!m.matches()) throw new IllegalArgumentException("Unable to parse range: " + range);
+
+            int firstColumn = m.group(1) != null ? column(m.group(1)) : 0;
+            int firstRow = m.group(2) != null ? Integer.parseInt(m.group(2)) - 1 : 0;
+            if (!cells.contains(":")) {
+                return new Range(title, firstRow, firstColumn, firstRow, firstColumn);
+            }
+            int lastColumn = m.group(3) != null ? column(m.group(3)) : COLUMNS - 1;
+            int lastRow = m.group(4) != null ? Integer.parseInt(m.group(4)) - 1 : Integer.MAX_VALUE;
+            return new Range(title, firstRow, firstColumn, lastRow, lastColumn);
+        }
+
+        private static int column(String letters) {
+            int column = 0;
+            for (int i = 0; i < letters.length(); i++) {
+                column = column * 26 + (letters.charAt(i) - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
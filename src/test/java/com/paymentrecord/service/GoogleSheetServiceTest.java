@@ -0,0 +1,193 @@
+package com.paymentrecord.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.sheets.v4.Sheets;
+import com.paymentrecord.config.GoogleSheetConfig;
+import com.paymentrecord.dto.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleSheetServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 16);
+    private static final String MONTH = "Oct-2026";
+    private static final String SUMMARY = SheetLayout.summaryName(MONTH);
+    // Partitions of 20 data rows, whose grids start at 8 rows and grow 8 at a time
+    private static final int MAX_ROWS_PER_SHEET = 20;
+    private static final int GROW_ROWS = 8;
+
+    private final FakeSheetsTransport transport = new FakeSheetsTransport();
+    private final List<Pipeline> pipelines = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        pipelines.forEach(pipeline -> pipeline.sheetsExecutor.shutdown());
+    }
+
+    @Test
+    void gridGrowsInChunksAheadOfTheRows() throws Exception {
+        Pipeline pipeline = start();
+        assertThat(transport.spreadsheet().rowCount(MONTH)).isEqualTo(GROW_ROWS + 1);
+
+        assertThat(pipeline.sheetService.saveBatch(payments(1, 10))).containsExactly(2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(transport.spreadsheet().rowCount(MONTH)).isEqualTo(17);
+
+        assertThat(pipeline.sheetService.saveBatch(payments(11, 5))).containsExactly(12, 13, 14, 15, 16);
+        // Never past the partition's last row
+        assertThat(transport.spreadsheet().rowCount(MONTH)).isEqualTo(MAX_ROWS_PER_SHEET + 1);
+        assertThat(transport.spreadsheet().row(MONTH, 16)).startsWith("16-10-2026", "UPI", "user15");
+    }
+
+    @Test
+    void fullPartitionOverflowsIntoTheNextOne() throws Exception {
+        Pipeline pipeline = start();
+        pipeline.sheetService.saveBatch(payments(1, 18));
+
+        // What the background request for the next partition does
+        pipeline.provisioner.ensureSheet(MONTH + "#2");
+
+        assertThat(pipeline.sheetService.saveBatch(payments(19, 5))).containsExactly(20, 21, 2, 3, 4);
+        assertThat(transport.spreadsheet().row(MONTH, 21)).startsWith("16-10-2026", "UPI", "user20");
+        assertThat(transport.spreadsheet().row(MONTH + "#2", 2)).startsWith("16-10-2026", "UPI", "user21");
+
+        // The day's total is on its last row, which is now in the second partition
+        double total = 0;
+        for (int n = 1; n <= 23; n++) total += amount(n);
+        assertThat(Double.parseDouble(transport.spreadsheet().row(MONTH + "#2", 4).get(6))).isEqualTo(total);
+        assertThat(transport.spreadsheet().row(MONTH, 21)).hasSizeLessThan(7);
+    }
+
+    @Test
+    void failedBatchResetsCursorsChecksumsAndRunningTotals() throws Exception {
+        start().sheetService.saveBatch(payments(1, 3));
+        // A restarted service hydrates the month from the sheet on its first save
+        Pipeline pipeline = start();
+        pipeline.sheetService.saveBatch(payments(4, 1));
+        assertThat(pipeline.checksums.lastRowOf(MONTH, "16-10-2026"))
+                .isEqualTo(new SheetBlockChecksums.LastRow(MONTH, 5));
+
+        // The grid grows, then the values write fails
+        transport.failNext("values:batchUpdate");
+        assertThatThrownBy(() -> pipeline.sheetService.saveBatch(payments(5, 7)))
+                .isInstanceOf(GoogleJsonResponseException.class);
+
+        assertThat(pipeline.rowCursors.current(MONTH)).isEqualTo(-1);
+        assertThat(pipeline.checksums.lastRowOf(MONTH, "16-10-2026")).isNull();
+        assertThat(pipeline.dailyTotals.isHydrated(MONTH)).isFalse();
+        assertThat(pipeline.summaryIndex.isHydrated(SUMMARY)).isFalse();
+
+        // The retry takes the same rows, and the grid the failed batch already grew
+        assertThat(pipeline.sheetService.saveBatch(payments(5, 7))).containsExactly(6, 7, 8, 9, 10, 11, 12);
+        assertThat(transport.spreadsheet().rowCount(MONTH)).isEqualTo(17);
+        double total = 0;
+        for (int n = 1; n <= 11; n++) total += amount(n);
+        assertThat(Double.parseDouble(transport.spreadsheet().row(MONTH, 12).get(6))).isEqualTo(total);
+        assertThat(Double.parseDouble(transport.spreadsheet().row(SUMMARY, SheetLayout.SUMMARY_FIRST_DATE_ROW).get(1)))
+                .isEqualTo(total);
+        assertThat(pipeline.checksums.lastRowOf(MONTH, "16-10-2026"))
+                .isEqualTo(new SheetBlockChecksums.LastRow(MONTH, 12));
+    }
+
+    @Test
+    void restartedServiceSavesWithoutWaitingForTheRepair() throws Exception {
+        start().sheetService.saveBatch(payments(1, 3));
+
+        // The startup repair has not run yet; the listing alone shows the sheet is ready
+        Pipeline restarted = new Pipeline(transport, false);
+        pipelines.add(restarted);
+        assertThat(restarted.provisioner.isReady(restarted.sheets, MONTH)).isTrue();
+        assertThat(restarted.sheetService.saveBatch(payments(4, 2))).containsExactly(5, 6);
+    }
+
+    @Test
+    void sheetsDeletedByHandAreDroppedOnTheNextRead() throws Exception {
+        Pipeline pipeline = start();
+        pipeline.provisioner.ensureSheet(MONTH + "#2");
+        assertThat(pipeline.provisioner.isReady(pipeline.sheets, MONTH + "#2")).isTrue();
+
+        transport.spreadsheet().deleteSheet(MONTH + "#2");
+        pipeline.metadataCache.invalidate();
+
+        assertThat(pipeline.provisioner.isReady(pipeline.sheets, MONTH + "#2")).isFalse();
+        assertThat(pipeline.metadataCache.all(pipeline.sheets, "test-spreadsheet"))
+                .extracting(SheetMetadata::title)
+                .containsExactlyInAnyOrder(MONTH, SUMMARY);
+    }
+
+    private Pipeline start() throws Exception {
+        Pipeline pipeline = new Pipeline(transport, true);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    private static List<PaymentRequest> payments(int first, int count) {
+        List<PaymentRequest> payments = new ArrayList<>();
+        for (int n = first; n < first + count; n++) {
+            payments.add(new PaymentRequest(DAY, "UPI", "user" + n, "user" + n + "@upi", amount(n), "Success"));
+        }
+        return payments;
+    }
+
+    private static double amount(int n) {
+        return 100 + n + 0.5;
+    }
+
+    /**
+     * The save pipeline wired by hand to a fake spreadsheet, with quotas and
+     * retries out of the way; each instance starts with empty caches, like a
+     * freshly started service.
+     */
+    private static final class Pipeline {
+        final SheetRowCursors rowCursors;
+        final DailyTotalsStore dailyTotals = new DailyTotalsStore();
+        final SummaryIndex summaryIndex = new SummaryIndex();
+        final SheetBlockChecksums checksums = new SheetBlockChecksums(500);
+        final Sheets sheets;
+        final SheetMetadataCache metadataCache;
+        final SheetsExecutor sheetsExecutor;
+        final MonthSheetProvisioner provisioner;
+        final GoogleSheetService sheetService;
+
+        Pipeline(FakeSheetsTransport transport, boolean provision) throws Exception {
+            this.sheets = new Sheets.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                    .setApplicationName("paymentrecord-test")
+                    .build();
+            GoogleSheetConfig config = new GoogleSheetConfig("test-spreadsheet", "") {
+                @Override
+                public Sheets getSheetsService() {
+                    return sheets;
+                }
+
+                @Override
+                public void refreshCredentials() {
+                }
+            };
+
+            PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry());
+            PaymentCodes codes = new PaymentCodes();
+            SheetsCallExecutor calls = new SheetsCallExecutor(metrics,
+                    Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 1, 0, 0, Integer.MAX_VALUE, 0);
+            this.metadataCache = new SheetMetadataCache(calls);
+            this.rowCursors = new SheetRowCursors(calls);
+            this.sheetsExecutor = new SheetsExecutor(metrics, 2);
+            this.provisioner = new MonthSheetProvisioner(config, metadataCache, rowCursors, dailyTotals,
+                    summaryIndex, calls, sheetsExecutor, 7, GROW_ROWS, MAX_ROWS_PER_SHEET);
+            this.sheetService = new GoogleSheetService(config, metadataCache, rowCursors, dailyTotals,
+                    summaryIndex, calls, sheetsExecutor, provisioner,
+                    new PaymentIndex(codes, new PaymentRollups(codes), new PayerSketches(codes)), metrics, checksums,
+                    6, GROW_ROWS, MAX_ROWS_PER_SHEET);
+
+            // What the scheduler and the startup repair do ahead of the first save
+            if (provision) provisioner.ensure(DAY.withDayOfMonth(1));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MonthSheetWritersTest {
+
+    private final PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry());
+    private final GoogleSheetService sheetService = mock(GoogleSheetService.class);
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    private SheetsExecutor sheetsExecutor;
+
+    @AfterEach
+    void shutdown() {
+        if (sheetsExecutor != null) sheetsExecutor.shutdown();
+    }
+
+    @Test
+    void eachMonthIsWrittenInOrderByOneWriterAtATime() throws Exception {
+        Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        Map<String, List<Integer>> written = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        when(sheetService.saveBatch(anyList())).thenAnswer(invocation -> {
+            List<PaymentRequest> part = invocation.getArgument(0);
+            String month = SheetLayout.monthSheetName(part.get(0).getDate());
+            if (active.computeIfAbsent(month, k -> new AtomicInteger()).incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            written.computeIfAbsent(month, k -> new CopyOnWriteArrayList<>()).add(sequenceOf(part.get(0)));
+            active.get(month).decrementAndGet();
+            return part.stream().map(MonthSheetWritersTest::sequenceOf).toList();
+        });
+        MonthSheetWriters writers = writers(8, 2);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int n = 0; n < 200; n++) {
+            results.addAll(writers.write(List.of(payment(n, LocalDate.of(2026, 1 + n % 6, 10)))));
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertThat(overlaps).hasValue(0);
+        assertThat(written).hasSize(6);
+        written.values().forEach(sequences -> assertThat(sequences).isSorted());
+        assertThat(written.values()).flatMap(sequences -> sequences).hasSize(200);
+        for (int n = 0; n < 200; n++) {
+            assertThat(results.get(n).get()).isEqualTo(n);
+        }
+    }
+
+    @Test
+    void monthsOnOneStripeTakeTurns() throws Exception {
+        MonthSheetWriters writers = writers(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        results.add(writers.submit("Oct-2026", () -> {
+            started.countDown();
+            release.await();
+            return record("Oct-0");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 3; i++) {
+            String oct = "Oct-" + i;
+            String sep = "Sep-" + i;
+            results.add(writers.submit("Oct-2026", () -> record(oct)));
+            results.add(writers.submit("Sep-2026", () -> record(sep)));
+        }
+        release.countDown();
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(handled).containsExactly("Oct-0", "Oct-1", "Sep-1", "Oct-2", "Sep-2", "Oct-3", "Sep-3");
+    }
+
+    @Test
+    void longDrainHandsTheThreadBackAfterTheDrainLimit() throws Exception {
+        MonthSheetWriters writers = writers(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        results.add(writers.submit("Oct-2026", () -> {
+            started.countDown();
+            release.await();
+            return record("write-0");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < 40; i++) {
+            String message = "write-" + i;
+            results.add(writers.submit("Oct-2026", () -> record(message)));
+        }
+        // Other Sheets work queued behind the busy drain
+        results.add(sheetsExecutor.submit(() -> record("other")));
+        release.countDown();
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(handled).hasSize(41);
+        assertThat(handled.indexOf("other")).isEqualTo(16);
+        assertThat(handled.get(17)).isEqualTo("write-16");
+    }
+
+    @Test
+    void failedMonthFailsOnlyItsOwnPayments() throws Exception {
+        when(sheetService.saveBatch(anyList())).thenAnswer(invocation -> {
+            List<PaymentRequest> part = invocation.getArgument(0);
+            if (part.get(0).getDate().getMonthValue() == 11) {
+                throw new IllegalStateException("quota exhausted");
+            }
+            return part.stream().map(MonthSheetWritersTest::sequenceOf).map(n -> n + 100).toList();
+        });
+        MonthSheetWriters writers = writers(2, 2);
+
+        List<CompletableFuture<Integer>> results = writers.write(List.of(
+                payment(1, LocalDate.of(2026, 10, 30)),
+                payment(2, LocalDate.of(2026, 11, 1)),
+                payment(3, LocalDate.of(2026, 10, 31))));
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo(101);
+        assertThat(results.get(2).get(5, TimeUnit.SECONDS)).isEqualTo(103);
+        assertThatThrownBy(() -> results.get(1).get(5, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("quota exhausted");
+    }
+
+    private MonthSheetWriters writers(int maxConcurrency, int stripes) {
+        sheetsExecutor = new SheetsExecutor(metrics, maxConcurrency);
+        return new MonthSheetWriters(sheetService, sheetsExecutor, metrics, stripes);
+    }
+
+    private String record(String message) {
+        handled.add(message);
+        return message;
+    }
+
+    private static int sequenceOf(PaymentRequest request) {
+        return Integer.parseInt(request.getUserName().substring("user".length()));
+    }
+
+    private static PaymentRequest payment(int n, LocalDate date) {
+        return new PaymentRequest(date, "UPI", "user" + n, "user" + n + "@upi", 10.0 + n, "Success");
+    }
+}
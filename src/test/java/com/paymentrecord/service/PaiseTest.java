@@ -0,0 +1,74 @@
+package com.paymentrecord.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaiseTest {
+
+    @Test
+    void parsesSheetFormattedAmounts() {
+        assertThat(Paise.parse("1234.5")).isEqualTo(123_450);
+        assertThat(Paise.parse("₹1,234.50")).isEqualTo(123_450);
+        assertThat(Paise.parse(" ₹ 12,00,000 ")).isEqualTo(120_000_000);
+        assertThat(Paise.parse("7")).isEqualTo(700);
+        assertThat(Paise.parse(".5")).isEqualTo(50);
+    }
+
+    @Test
+    void thirdDecimalRoundsHalfUpAndTheRestIsIgnored() {
+        assertThat(Paise.parse("1.005")).isEqualTo(101);
+        assertThat(Paise.parse("1.004")).isEqualTo(100);
+        assertThat(Paise.parse("1.0049")).isEqualTo(100);
+        assertThat(Paise.parse("0.999")).isEqualTo(100);
+    }
+
+    @Test
+    void negativesKeepTheirSign() {
+        assertThat(Paise.parse("-20")).isEqualTo(-2_000);
+        assertThat(Paise.parse("-₹1,000.25")).isEqualTo(-100_025);
+        assertThat(Paise.parse("-1.005")).isEqualTo(-101);
+    }
+
+    @Test
+    void anythingElseIsInvalid() {
+        assertThat(Paise.parse("")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("₹")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("-")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("abc")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("N/A")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("1.2.3")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("1e3")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("12-")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("$12")).isEqualTo(Paise.INVALID);
+    }
+
+    @Test
+    void amountsBeyondALongOfPaiseAreInvalid() {
+        assertThat(Paise.parse("92233720368547758.07")).isEqualTo(Long.MAX_VALUE);
+        assertThat(Paise.parse("-92233720368547758.07")).isEqualTo(-Long.MAX_VALUE);
+        assertThat(Paise.parse("92233720368547758.08")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("92233720368547758.075")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("92233720368547759")).isEqualTo(Paise.INVALID);
+        assertThat(Paise.parse("99999999999999999999999")).isEqualTo(Paise.INVALID);
+    }
+
+    @Test
+    void cellValuesAndRequestAmounts() {
+        assertThat(Paise.of((Object) 12.345)).isEqualTo(1_235);
+        assertThat(Paise.of((Object) "₹10.10")).isEqualTo(1_010);
+        assertThat(Paise.of((Object) null)).isZero();
+        // Text that is not an amount adds nothing to a total, as in SUM
+        assertThat(Paise.of((Object) "N/A")).isZero();
+        assertThat(Paise.of(0.1 + 0.2)).isEqualTo(30);
+        assertThat(Paise.of((Double) null)).isZero();
+    }
+
+    @Test
+    void appendsTwoDecimals() {
+        assertThat(Paise.appendTo(new StringBuilder(), -123_405)).hasToString("-1234.05");
+        assertThat(Paise.appendTo(new StringBuilder(), 5)).hasToString("0.05");
+        assertThat(Paise.appendTo(new StringBuilder(), 120_000)).hasToString("1200.00");
+        assertThat(Paise.toRupees(123_450)).isEqualTo(1234.5);
+    }
+}
@@ -0,0 +1,139 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PayerAnalyticsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayerSketchesTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 16);
+
+    private final PaymentCodes codes = new PaymentCodes();
+    private final PayerSketches sketches = new PayerSketches(codes);
+
+    @Test
+    void countMinNeverUndercountsAndStaysWithinItsBound() {
+        Map<String, Long> trueCounts = new HashMap<>();
+        long total = 0;
+        // A few heavy payers and a long tail, 120k payments in all
+        for (int i = 0; i < 20_000; i++) {
+            String upiId = "payer" + i + "@upi";
+            int payments = i < 10 ? 2_000 : i % 7 == 0 ? 20 : 4;
+            for (int p = 0; p < payments; p++) {
+                sketches.add(payment(DAY, 100, "user" + i, upiId));
+            }
+            trueCounts.put(upiId, (long) payments);
+            total += payments;
+        }
+
+        // epsilon = e / width for a 4 x 8192 sketch
+        long bound = (long) Math.ceil(Math.E / 8192 * total);
+        trueCounts.forEach((upiId, count) -> {
+            long estimate = sketches.estimate(upiId).getCount();
+            assertThat(estimate).isGreaterThanOrEqualTo(count);
+            assertThat(estimate - count).isLessThanOrEqualTo(bound);
+        });
+        assertThat(sketches.estimate("PAYER3@UPI").getAmount()).isGreaterThanOrEqualTo(2_000.0);
+        assertThat(sketches.estimate("nobody@upi").getCount()).isZero();
+    }
+
+    @Test
+    void hyperLogLogCountsDistinctPayersWithinAFewPercent() {
+        for (int i = 0; i < 50_000; i++) {
+            sketches.add(payment(DAY, 100, "user", "payer" + i + "@upi"));
+            sketches.add(payment(DAY.plusDays(1), 100, "user", "payer" + (i % 1_000) + "@upi"));
+        }
+
+        PayerAnalyticsResponse report = sketches.report(null, null, 5, true);
+
+        assertThat(report.getDistinctPayersByDay()).hasSize(2);
+        assertThat(report.getDistinctPayersByDay().get(0).getEstimate()).isBetween(47_500L, 52_500L);
+        assertThat(report.getDistinctPayersByDay().get(1).getEstimate()).isBetween(970L, 1_030L);
+        // The month is the union, and the second day's payers are a subset of the first's
+        assertThat(report.getDistinctPayersByMonth().get(0).getEstimate()).isBetween(47_500L, 52_500L);
+    }
+
+    @Test
+    void spaceSavingKeepsEveryHeavyHitter() {
+        for (int round = 0; round < 50; round++) {
+            for (int heavy = 0; heavy < 5; heavy++) {
+                sketches.add(payment(DAY, 1_000_00, "big" + heavy, "big" + heavy + "@upi"));
+            }
+            for (int i = 0; i < 1_000; i++) {
+                sketches.add(payment(DAY, 100, "small" + i, "small" + (round * 1_000 + i) + "@upi"));
+            }
+        }
+
+        PayerAnalyticsResponse report = sketches.report(null, null, 5, true);
+
+        assertThat(report.getTopUpiIdsByAmount()).extracting(PayerAnalyticsResponse.TopPayer::getPayer)
+                .containsExactlyInAnyOrder("big0@upi", "big1@upi", "big2@upi", "big3@upi", "big4@upi");
+        assertThat(report.getTopUpiIdsByAmount()).allSatisfy(top -> {
+            assertThat(top.getValue() - top.getMaxError()).isLessThanOrEqualTo(50_000.0);
+            assertThat(top.getValue()).isGreaterThanOrEqualTo(50_000.0);
+        });
+    }
+
+    @Test
+    void daysOutsideTheWindowAreFoldedIntoTheirMonth() {
+        LocalDate first = LocalDate.of(2026, 1, 1);
+        // 200 days of 10 new payers each, and one payer long before the months kept
+        for (int day = 0; day < 200; day++) {
+            for (int i = 0; i < 10; i++) {
+                sketches.add(payment(first.plusDays(day), 100, "user", "payer" + day + "-" + i + "@upi"));
+            }
+        }
+        sketches.add(payment(LocalDate.of(2020, 1, 1), 100, "user", "ancient@upi"));
+        // A back-dated payment to a folded day still counts towards its month
+        sketches.add(payment(LocalDate.of(2026, 2, 10), 100, "user", "late@upi"));
+
+        PayerAnalyticsResponse report = sketches.report(null, null, 5, true);
+
+        assertThat(report.getDistinctPayersByDay()).hasSize(PayerSketches.DAYS_KEPT);
+        assertThat(report.getDistinctPayersByDay().get(0).getPeriod())
+                .isEqualTo(first.plusDays(200 - PayerSketches.DAYS_KEPT).toString());
+        assertThat(report.getDistinctPayersByMonth()).extracting(PayerAnalyticsResponse.DistinctPayers::getPeriod)
+                .containsExactly("2026-01", "2026-02", "2026-03", "2026-04", "2026-05", "2026-06", "2026-07");
+        assertThat(report.getDistinctPayersByMonth().get(0).getEstimate()).isBetween(300L, 320L);
+        assertThat(report.getDistinctPayersByMonth().get(1).getEstimate()).isBetween(275L, 291L);
+
+        // A range inside a folded month reports the month as a whole
+        PayerAnalyticsResponse january = sketches.report(first, first.plusDays(1), 5, true);
+        assertThat(january.getDistinctPayersByDay()).isEmpty();
+        assertThat(january.getDistinctPayersByMonth().get(0).getEstimate()).isBetween(300L, 320L);
+    }
+
+    @Test
+    void clearingSheetsRebuildsFromWhatIsLeft() {
+        PaymentIndex index = new PaymentIndex(codes, new PaymentRollups(codes), sketches);
+        index.loadSheet("Oct-2026", rows("kept@upi", 3));
+        index.loadSheet("Nov-2026", rows("gone@upi", 4));
+        index.loadSheet("Dec-2026", rows("gone@upi", 2));
+
+        index.clearSheets(List.of("Nov-2026", "Dec-2026"));
+
+        assertThat(sketches.estimate("gone@upi").getCount()).isZero();
+        assertThat(sketches.estimate("kept@upi").getCount()).isEqualTo(3);
+    }
+
+    private CompactPayment payment(LocalDate day, long paise, String user, String upiId) {
+        return new CompactPayment((int) day.toEpochDay(), paise, 0, 0,
+                codes.users().code(user), codes.upiIds().code(upiId), 0, 0);
+    }
+
+    private static List<List<Object>> rows(String upiId, int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(List.of("Date", "Channel", "User", "UPI ID", "Amount", "Status"));
+        for (int i = 0; i < count; i++) {
+            rows.add(List.of("16-10-2026", "UPI", "user", upiId, "10", "Success"));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,101 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentDedupeIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private PaymentDedupeIndex index;
+
+    @AfterEach
+    void close() {
+        if (index != null) index.close();
+    }
+
+    @Test
+    void duplicateGetsTheOriginalWrite() throws Exception {
+        index = open(100, 2);
+        CompletableFuture<Integer> original = new CompletableFuture<>();
+
+        assertThat(index.claim(payment("key-1", 10), original)).isNull();
+        assertThat(index.claim(payment("key-1", 10), new CompletableFuture<>())).isSameAs(original);
+    }
+
+    @Test
+    void committedKeysSurviveARestart() throws Exception {
+        index = open(100, 2);
+        index.claim(payment("key-1", 10), new CompletableFuture<>());
+        index.commit(payment("key-1", 10));
+
+        index = reopen(100, 2);
+
+        CompletableFuture<Integer> known = index.claim(payment("key-1", 10), new CompletableFuture<>());
+        assertThat(known).isCompleted();
+        assertThat(known.join()).isNull();
+    }
+
+    @Test
+    void uncommittedOrReleasedClaimsAreForgottenOnRestart() throws Exception {
+        index = open(100, 2);
+        index.claim(payment("pending", 10), new CompletableFuture<>());
+        index.claim(payment("failed", 20), new CompletableFuture<>());
+        index.release(payment("failed", 20));
+        assertThat(index.claim(payment("failed", 20), new CompletableFuture<>())).isNull();
+
+        index = reopen(100, 2);
+
+        assertThat(index.claim(payment("pending", 10), new CompletableFuture<>())).isNull();
+        assertThat(index.claim(payment("failed", 20), new CompletableFuture<>())).isNull();
+    }
+
+    @Test
+    void keysOutOfTheLruAndEvictedMonthsAreStillCaught() throws Exception {
+        index = open(1, 1);
+        PaymentRequest october = payment("key-1", 10);
+        index.claim(october, new CompletableFuture<>());
+        index.commit(october);
+
+        // Pushes key-1 out of the LRU and October out of memory
+        PaymentRequest november = payment("key-2", 10);
+        november.setDate(LocalDate.of(2026, 11, 2));
+        index.claim(november, new CompletableFuture<>());
+
+        assertThat(index.claim(october, new CompletableFuture<>())).isCompleted();
+    }
+
+    @Test
+    void derivedKeyNeedsAClientReference() {
+        PaymentRequest request = payment(null, 10);
+        assertThat(PaymentDedupeIndex.keyOf(request)).isNull();
+
+        request.setClientReference("inv-7");
+        assertThat(PaymentDedupeIndex.keyOf(request)).isEqualTo("2026-10-16|a@upi|10.0|inv-7");
+    }
+
+    private PaymentDedupeIndex open(int maxRecent, int maxMonths) throws IOException {
+        return new PaymentDedupeIndex(directory.toString(), maxRecent, maxMonths);
+    }
+
+    private PaymentDedupeIndex reopen(int maxRecent, int maxMonths) throws IOException {
+        index.close();
+        return open(maxRecent, maxMonths);
+    }
+
+    private static PaymentRequest payment(String idempotencyKey, double amount) {
+        PaymentRequest request = new PaymentRequest(LocalDate.of(2026, 10, 16), "UPI", "A", "a@upi", amount, "Success");
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
@@ -0,0 +1,83 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentPageResponse;
+import com.paymentrecord.dto.PaymentRecordResponse;
+import com.paymentrecord.dto.PaymentRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentIndexTest {
+
+    private static final LocalDate OCT_1 = LocalDate.of(2026, 10, 1);
+
+    private final PaymentCodes codes = new PaymentCodes();
+    private final PaymentIndex index = new PaymentIndex(codes, new PaymentRollups(codes), new PayerSketches(codes));
+
+    @Test
+    void dateRangePagesFollowDateSheetAndRow() {
+        // Ten days of payments, saved out of order across two partitions
+        for (int day = 9; day >= 0; day--) {
+            index.addAll("Oct-2026#2", 2 + day * 3, payments(OCT_1.plusDays(day), "user", 3));
+            index.addAll("Oct-2026", 2 + day * 3, payments(OCT_1.plusDays(day), "user", 3));
+        }
+
+        PaymentIndex.Query october = new PaymentIndex.Query(OCT_1.plusDays(2), OCT_1.plusDays(7),
+                null, null, null, null);
+        List<String> walked = new ArrayList<>();
+        for (int page = 0; page < 5; page++) {
+            PaymentPageResponse response = index.query(october, page, 8);
+            assertThat(response.getTotal()).isEqualTo(36);
+            response.getPayments().forEach(payment -> walked.add(location(payment)));
+        }
+
+        assertThat(walked).hasSize(36).doesNotHaveDuplicates();
+        assertThat(walked.subList(0, 7)).containsExactly(
+                "03 Oct-2026 8", "03 Oct-2026 9", "03 Oct-2026 10",
+                "03 Oct-2026#2 8", "03 Oct-2026#2 9", "03 Oct-2026#2 10", "04 Oct-2026 11");
+        assertThat(walked.get(35)).isEqualTo("08 Oct-2026#2 25");
+        assertThat(index.query(october, 9, 8).getPayments()).isEmpty();
+    }
+
+    @Test
+    void filteredPagesMatchTheFullSortedList() {
+        for (int day = 0; day < 10; day++) {
+            String user = day % 2 == 0 ? "Asha" : "Ravi";
+            index.addAll("Oct-2026", 2 + day * 4, payments(OCT_1.plusDays(9 - day), user, 4));
+        }
+
+        PaymentIndex.Query asha = new PaymentIndex.Query(null, null, "asha", null, null, null);
+        List<String> walked = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            PaymentPageResponse response = index.query(asha, page, 6);
+            assertThat(response.getTotal()).isEqualTo(20);
+            response.getPayments().forEach(payment -> walked.add(location(payment)));
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (LocalDate date = OCT_1; date.isBefore(OCT_1.plusDays(10)); date = date.plusDays(1)) {
+            index.day(date).stream()
+                    .filter(payment -> payment.getUserName().equals("Asha"))
+                    .forEach(payment -> expected.add(location(payment)));
+        }
+        assertThat(expected).hasSize(20);
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    private static List<PaymentRequest> payments(LocalDate date, String user, int count) {
+        List<PaymentRequest> payments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            payments.add(new PaymentRequest(date, "UPI", user, user.toLowerCase() + "@upi", 10.0 + i, "Success"));
+        }
+        return payments;
+    }
+
+    private static String location(PaymentRecordResponse payment) {
+        return String.format("%02d %s %d",
+                payment.getDate().getDayOfMonth(), payment.getSheet(), payment.getRow());
+    }
+}
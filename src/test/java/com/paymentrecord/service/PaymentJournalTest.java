@@ -0,0 +1,182 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.PaymentRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentJournalTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    private PaymentJournal journal;
+
+    @AfterEach
+    void close() {
+        if (journal != null) journal.close();
+    }
+
+    @Test
+    void restartHandsBackOnlyUnprojectedPayments() throws Exception {
+        journal = open();
+        assertThat(journal.appendAll(List.of(payment(1), payment(2), payment(3)))).containsExactly(1L, 2L, 3L);
+        journal.markProjected(2);
+
+        journal = reopen();
+
+        assertThat(journal.unprojected()).extracting(PaymentLedger.Entry::seq).containsExactly(1L, 3L);
+        assertThat(journal.unprojected()).extracting(entry -> entry.request().getUserName())
+                .containsExactly("user1", "user3");
+        assertThat(journal.append(payment(4))).isEqualTo(4);
+    }
+
+    @Test
+    void tornTailIsDroppedAndOverwritten() throws Exception {
+        journal = open();
+        journal.appendAll(List.of(payment(1), payment(2)));
+        journal.close();
+        corruptLastRecord(directory.resolve("journal-000001.log"));
+
+        journal = open();
+        assertThat(journal.unprojected()).extracting(PaymentLedger.Entry::seq).containsExactly(1L);
+        assertThat(journal.append(payment(5))).isEqualTo(2);
+
+        journal = reopen();
+        assertThat(seqsAndUsers()).containsExactly("1:user1", "2:user5");
+    }
+
+    @Test
+    void fullyProjectedSegmentsAreArchivedAndStillVisited() throws Exception {
+        journal = open();
+        List<Long> seqs = appendUntilSegment(3);
+        for (long seq : seqs) journal.markProjected(seq);
+
+        waitFor(() -> files(".archive").size() == 2);
+        assertThat(files(".log")).containsExactly("journal-000003.log");
+        assertThat(seqsAndUsers()).hasSize(seqs.size()).first().isEqualTo("1:user1");
+
+        journal = reopen();
+        assertThat(journal.unprojected()).isEmpty();
+        assertThat(seqsAndUsers()).hasSize(seqs.size());
+        assertThat(journal.append(payment(0))).isEqualTo(seqs.size() + 1);
+    }
+
+    @Test
+    void anUnprojectedPaymentKeepsItsSegmentAndEveryLaterOneLive() throws Exception {
+        journal = open();
+        List<Long> seqs = appendUntilSegment(3);
+        for (long seq : seqs.subList(1, seqs.size())) journal.markProjected(seq);
+
+        journal = reopen();
+
+        assertThat(files(".archive")).isEmpty();
+        assertThat(journal.unprojected()).extracting(PaymentLedger.Entry::seq).containsExactly(1L);
+        journal.markProjected(1);
+        waitFor(() -> files(".archive").size() == 2);
+    }
+
+    @Test
+    void startupFinishesAnInterruptedRetirement() throws Exception {
+        journal = open();
+        List<Long> seqs = appendUntilSegment(2);
+        for (long seq : seqs) journal.markProjected(seq);
+        waitFor(() -> files(".archive").size() == 1);
+        journal.close();
+
+        // A crash after the archive was moved into place but before the segment was deleted
+        Files.write(directory.resolve("journal-000001.log"), new byte[1024 * 1024]);
+        Files.write(directory.resolve("journal-000002.archive.tmp"), new byte[]{1, 2, 3});
+
+        journal = open();
+
+        assertThat(files(".log")).containsExactly("journal-000002.log");
+        assertThat(files(".tmp")).isEmpty();
+        assertThat(seqsAndUsers()).hasSize(seqs.size());
+        assertThat(journal.unprojected()).isEmpty();
+    }
+
+    private PaymentJournal open() throws IOException {
+        return new PaymentJournal(mapper, directory.toString(), 1);
+    }
+
+    private PaymentJournal reopen() throws IOException {
+        journal.close();
+        return open();
+    }
+
+    // Appends one payment at a time until a record lands in the given segment
+    private List<Long> appendUntilSegment(int segment) throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        String last = String.format("journal-%06d.log", segment);
+        while (!Files.exists(directory.resolve(last))) {
+            List<PaymentRequest> batch = new ArrayList<>();
+            for (int i = 0; i < 100; i++) batch.add(payment(seqs.size() + i + 1));
+            seqs.addAll(journal.appendAll(batch));
+        }
+        return seqs;
+    }
+
+    private List<String> seqsAndUsers() throws IOException {
+        List<String> visited = new ArrayList<>();
+        journal.forEach(entry -> visited.add(entry.seq() + ":" + entry.request().getUserName()));
+        return visited;
+    }
+
+    private List<String> files(String suffix) {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the journal").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // Flips a payload byte of the last record, as a write torn by a crash would leave it
+    private static void corruptLastRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = 0;
+            int last = -1;
+            while (buffer.getInt(position) != 0) {
+                last = position;
+                position += 8 + buffer.getInt(position);
+            }
+            int target = last + 8 + 9 + 2;
+            buffer.put(target, (byte) (buffer.get(target) ^ 0x5A));
+            buffer.force();
+        }
+    }
+
+    private static PaymentRequest payment(int n) {
+        return new PaymentRequest(LocalDate.of(2026, 10, 16), "UPI", "user" + n, "user" + n + "@upi",
+                10.0 + n, "Success");
+    }
+}
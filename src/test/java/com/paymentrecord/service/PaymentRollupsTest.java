@@ -0,0 +1,81 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentReportResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentRollupsTest {
+
+    private final PaymentCodes codes = new PaymentCodes();
+    private final PaymentRollups rollups = new PaymentRollups(codes);
+
+    @Test
+    void packKeepsBothCodesWhole() {
+        long packed = PaymentRollups.pack(Integer.MAX_VALUE, 65_536);
+
+        assertThat(PaymentRollups.channelOf(packed)).isEqualTo(Integer.MAX_VALUE);
+        assertThat(PaymentRollups.statusOf(packed)).isEqualTo(65_536);
+        assertThat(PaymentRollups.pack(65_536, 1)).isNotEqualTo(PaymentRollups.pack(0, 1));
+        assertThat(PaymentRollups.pack(1, 65_537)).isNotEqualTo(PaymentRollups.pack(1, 1));
+    }
+
+    @Test
+    void codesPastSixteenBitsDoNotMerge() {
+        LocalDate day = LocalDate.of(2026, 10, 16);
+        int first = codes.channels().code("channel-1");
+        for (int i = 2; i <= 65_537; i++) {
+            codes.channels().code("channel-" + i);
+        }
+        int wrapped = codes.channels().code("channel-65537");
+        assertThat(wrapped & 0xFFFF).isEqualTo(first & 0xFFFF);
+
+        rollups.apply(payment(day, 100, "channel-1", "Success"), 1);
+        rollups.apply(payment(day, 250, "channel-65537", "Success"), 1);
+
+        PaymentReportResponse report = rollups.report(day, day, false);
+        assertThat(report.getRows()).extracting(PaymentReportResponse.Row::getChannelType)
+                .containsExactlyInAnyOrder("channel-1", "channel-65537");
+    }
+
+    @Test
+    void subtractingUndoesAddingAndRangesFilter() {
+        LocalDate oct16 = LocalDate.of(2026, 10, 16);
+        LocalDate nov1 = LocalDate.of(2026, 11, 1);
+        rollups.apply(payment(oct16, 1000, "UPI", "Success"), 1);
+        rollups.apply(payment(oct16, 500, "upi", "success"), 1);
+        rollups.apply(payment(oct16, 200, "Cash", "Failed"), 1);
+        rollups.apply(payment(nov1, 300, "UPI", "Success"), 1);
+        rollups.apply(payment(oct16, 200, "Cash", "Failed"), -1);
+
+        PaymentReportResponse october = rollups.report(oct16, LocalDate.of(2026, 10, 31), false);
+        assertThat(october.getRows()).hasSize(1);
+        assertThat(october.getRows().get(0).getCount()).isEqualTo(2);
+        assertThat(october.getRows().get(0).getTotalAmount()).isEqualTo(15.0);
+
+        PaymentReportResponse monthly = rollups.report(null, null, true);
+        assertThat(monthly.getRows()).extracting(PaymentReportResponse.Row::getPeriod)
+                .containsExactly("2026-10", "2026-11");
+    }
+
+    @Test
+    void growingKeepsEveryTotal() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        for (int day = 0; day < 365; day++) {
+            for (String status : new String[]{"Success", "Failed", "Pending"}) {
+                rollups.apply(payment(start.plusDays(day), 100, "UPI", status), 1);
+            }
+        }
+
+        PaymentReportResponse year = rollups.report(null, null, true);
+        assertThat(year.getRows()).hasSize(36);
+        assertThat(year.getRows()).allSatisfy(row -> assertThat(row.getCount()).isBetween(28L, 31L));
+    }
+
+    private CompactPayment payment(LocalDate day, long paise, String channel, String status) {
+        return new CompactPayment((int) day.toEpochDay(), paise, codes.channels().code(channel),
+                codes.statuses().code(status), 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.paymentrecord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentrecord.dto.PaymentRecordResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStreamReaderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void csvHonoursQuotesCommasAndEscapedQuotes() throws Exception {
+        List<PaymentStreamReader.ParsedPayment> parsed = readCsv("""
+                date,userName,upiId,amount
+                2026-10-16,"Rao, K.","say ""hi""@upi","₹1,234.50"
+                """);
+
+        assertThat(parsed).hasSize(1);
+        assertThat(parsed.get(0).request().getUserName()).isEqualTo("Rao, K.");
+        assertThat(parsed.get(0).request().getUpiId()).isEqualTo("say \"hi\"@upi");
+        assertThat(parsed.get(0).request().getAmount()).isEqualTo(1234.5);
+    }
+
+    @Test
+    void csvQuotedFieldsMaySpanLines() throws Exception {
+        List<PaymentStreamReader.ParsedPayment> parsed = readCsv(
+                "\uFEFFdate,userName,amount\r\n"
+                        + "16-10-2026,\"first\nsecond\",10\r\n"
+                        + "\r\n"
+                        + "17-10-2026,\"a\r\nb\",20\n");
+
+        assertThat(parsed).hasSize(2);
+        assertThat(parsed.get(0).request().getDate()).isEqualTo(LocalDate.of(2026, 10, 16));
+        assertThat(parsed.get(0).request().getUserName()).isEqualTo("first\nsecond");
+        assertThat(parsed.get(1).request().getUserName()).isEqualTo("a\r\nb");
+        assertThat(parsed.get(1).request().getAmount()).isEqualTo(20.0);
+    }
+
+    @Test
+    void csvRejectsBadRecordsOneByOne() throws Exception {
+        List<PaymentStreamReader.ParsedPayment> parsed = readCsv("""
+                date,amount
+                not-a-date,10
+                2026-10-16,ten
+                2026-10-16,"5
+                """);
+
+        assertThat(parsed).hasSize(3);
+        assertThat(parsed.get(0).error()).isNotNull();
+        assertThat(parsed.get(1).error()).isNotNull();
+        assertThat(parsed.get(2).error()).contains("Unterminated");
+    }
+
+    @Test
+    void csvExportReadsBackUnchanged() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PaymentStreamWriter writer = PaymentStreamWriter.open(out, PaymentStreamReader.TEXT_CSV, mapper);
+        writer.write(new PaymentRecordResponse(LocalDate.of(2026, 10, 16), "UPI", "line one\nline \"two\", end",
+                "x@upi", 99.99, "Success", "Oct-2026", 2));
+        writer.flush();
+
+        List<PaymentStreamReader.ParsedPayment> parsed = readCsv(out.toString(StandardCharsets.UTF_8));
+
+        assertThat(parsed).hasSize(1);
+        assertThat(parsed.get(0).request().getUserName()).isEqualTo("line one\nline \"two\", end");
+        assertThat(parsed.get(0).request().getAmount()).isEqualTo(99.99);
+        assertThat(parsed.get(0).request().getStatus()).isEqualTo("Success");
+    }
+
+    @Test
+    void jsonSyntaxErrorEndsTheStreamAsAFailedRecord() throws Exception {
+        List<PaymentStreamReader.ParsedPayment> parsed = read("""
+                [{"date":"2026-10-16","amount":10},
+                 {"date":"2026-10-16","amount":"x"},
+                 {"date":"2026-10-16","amount":30},
+                 {"date": oops},
+                 {"date":"2026-10-16","amount":50}]
+                """, MediaType.APPLICATION_JSON);
+
+        assertThat(parsed).hasSize(4);
+        assertThat(parsed.get(0).request().getAmount()).isEqualTo(10.0);
+        assertThat(parsed.get(1).error()).isNotNull();
+        assertThat(parsed.get(2).request().getAmount()).isEqualTo(30.0);
+        assertThat(parsed.get(3).request()).isNull();
+        assertThat(parsed.get(3).error()).startsWith("Malformed JSON at line 4");
+    }
+
+    private List<PaymentStreamReader.ParsedPayment> readCsv(String body) throws Exception {
+        return read(body, PaymentStreamReader.TEXT_CSV);
+    }
+
+    private List<PaymentStreamReader.ParsedPayment> read(String body, MediaType contentType) throws Exception {
+        List<PaymentStreamReader.ParsedPayment> parsed = new ArrayList<>();
+        try (PaymentStreamReader reader = PaymentStreamReader.open(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType, mapper)) {
+            PaymentStreamReader.ParsedPayment next;
+            while ((next = reader.next()) != null) {
+                parsed.add(next);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,185 @@
+package com.paymentrecord.service;
+
+import com.paymentrecord.dto.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentWriteQueueTest {
+
+    private final MonthSheetWriters writers = mock(MonthSheetWriters.class);
+    private final List<List<PaymentRequest>> batches = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Integer>> rows = new CopyOnWriteArrayList<>();
+
+    private PaymentWriteQueue queue;
+    private volatile boolean stopping;
+
+    @AfterEach
+    void stop() {
+        if (queue == null || !queue.isRunning()) return;
+        // Let held-back writes finish, or the drain on stop would wait for them forever
+        stopping = true;
+        rows.forEach(row -> row.complete(0));
+        queue.stop();
+    }
+
+    @Test
+    void fullBatchIsFlushedWithoutWaitingForTheWindow() throws Exception {
+        writersAnswer(payment -> CompletableFuture.completedFuture(2));
+        queue = start(60_000, 3, 4, 100);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            results.add(queue.submit(payment(i)));
+        }
+
+        for (CompletableFuture<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        }
+        assertThat(batches).extracting(List::size).containsExactly(3, 3);
+        assertThat(batches.get(1)).extracting(PaymentRequest::getUserName).containsExactly("user4", "user5", "user6");
+    }
+
+    @Test
+    void partialBatchIsFlushedWhenTheWindowCloses() throws Exception {
+        writersAnswer(payment -> CompletableFuture.completedFuture(2));
+        queue = start(500, 100, 4, 100);
+
+        CompletableFuture<Integer> first = queue.submit(payment(1));
+        CompletableFuture<Integer> second = queue.submit(payment(2));
+        Thread.sleep(100);
+        assertThat(batches).isEmpty();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(PaymentRequest::getUserName).containsExactly("user1", "user2");
+    }
+
+    @Test
+    void flushesInFlightAreLimited() throws Exception {
+        writersAnswer(payment -> pendingRow());
+        queue = start(0, 1, 2, 100);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            results.add(queue.submit(payment(i)));
+        }
+
+        waitFor(() -> batches.size() == 2);
+        Thread.sleep(200);
+        assertThat(batches).hasSize(2);
+
+        rows.get(0).complete(7);
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo(7);
+        waitFor(() -> batches.size() == 3);
+        Thread.sleep(200);
+        assertThat(batches).hasSize(3);
+    }
+
+    @Test
+    void failedBatchFailsEveryWaitingSave() throws Exception {
+        writersAnswer(payment -> CompletableFuture.failedFuture(new IllegalStateException("quota exhausted")));
+        queue = start(60_000, 2, 4, 100);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = callers.submit(() -> queue.savePayment(payment(1)));
+            Future<Integer> second = callers.submit(() -> queue.savePayment(payment(2)));
+
+            for (Future<Integer> save : List.of(first, second)) {
+                assertThatThrownBy(() -> save.get(5, TimeUnit.SECONDS))
+                        .cause()
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("quota exhausted");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void stopFlushesWhatIsQueued() throws Exception {
+        writersAnswer(payment -> CompletableFuture.completedFuture(2));
+        queue = start(60_000, 100, 4, 100);
+
+        List<CompletableFuture<Integer>> results = List.of(
+                queue.submit(payment(1)), queue.submit(payment(2)), queue.submit(payment(3)));
+        queue.stop();
+
+        assertThat(results).allMatch(result -> result.isDone() && !result.isCompletedExceptionally());
+        assertThat(batches).hasSize(1);
+        assertThatThrownBy(() -> queue.submit(payment(4))).isInstanceOf(PaymentQueueFullException.class);
+    }
+
+    @Test
+    void paymentsBeyondTheQueueDepthAreRejected() throws Exception {
+        writersAnswer(payment -> pendingRow());
+        queue = start(0, 1, 1, 2);
+
+        queue.submit(payment(1));
+        waitFor(() -> batches.size() == 1);
+        // The worker holds this one while it waits for the flush in flight
+        queue.submit(payment(2));
+        waitFor(() -> queue.depth() == 0);
+        queue.submit(payment(3));
+        queue.submit(payment(4));
+
+        assertThatThrownBy(() -> queue.submit(payment(5))).isInstanceOf(PaymentQueueFullException.class);
+        assertThat(queue.depth()).isEqualTo(2);
+    }
+
+    private void writersAnswer(Function<PaymentRequest, CompletableFuture<Integer>> perPayment) {
+        when(writers.write(anyList())).thenAnswer(invocation -> {
+            List<PaymentRequest> batch = List.copyOf(invocation.getArgument(0));
+            batches.add(batch);
+            return batch.stream().map(perPayment::apply).toList();
+        });
+    }
+
+    private CompletableFuture<Integer> pendingRow() {
+        CompletableFuture<Integer> row = new CompletableFuture<>();
+        rows.add(row);
+        if (stopping) row.complete(0);
+        return row;
+    }
+
+    private PaymentWriteQueue start(long windowMillis, int maxBatchSize, int maxInFlight, int maxQueueDepth) {
+        PaymentWriteQueue started = new PaymentWriteQueue(writers, new PaymentMetrics(new SimpleMeterRegistry()),
+                windowMillis, maxBatchSize, maxInFlight, maxQueueDepth);
+        started.start();
+        return started;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the queue").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static PaymentRequest payment(int n) {
+        return new PaymentRequest(LocalDate.of(2026, 10, 16), "UPI", "user" + n, "user" + n + "@upi",
+                10.0 + n, "Success");
+    }
+}
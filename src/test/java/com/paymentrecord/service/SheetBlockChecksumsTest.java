@@ -0,0 +1,142 @@
+package com.paymentrecord.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SheetBlockChecksumsTest {
+
+    private static final String OCT = "Oct-2026";
+    private static final String OCT_2 = "Oct-2026#2";
+    private static final String D16 = "16-10-2026";
+    private static final String D17 = "17-10-2026";
+
+    // Blocks of 5 rows: rows 2-6 are block 0, rows 7-11 block 1
+    private final SheetBlockChecksums checksums = new SheetBlockChecksums(5);
+
+    @Test
+    void unchangedBlockHasNoCorrections() {
+        checksums.baseline(OCT, Map.of(OCT, sheet(row(D16, "10"), row(D16, "20"), row(D17, "5"))));
+
+        assertThat(compare(OCT, 0, List.of(D16, D16, D17), List.of("10", "20", "5"))).isEmpty();
+    }
+
+    @Test
+    void handEditsBecomeCorrectionsPerDate() {
+        checksums.baseline(OCT, Map.of(OCT, sheet(row(D16, "10"), row(D16, "20"), row(D17, "5"))));
+
+        // 20 edited to 25, and the 17th's row moved to the 18th
+        List<SheetBlockChecksums.Correction> corrections =
+                compare(OCT, 0, List.of(D16, D16, "18-10-2026"), List.of("10", "25", "5"));
+
+        assertThat(corrections).containsExactlyInAnyOrder(
+                new SheetBlockChecksums.Correction(D16, 500),
+                new SheetBlockChecksums.Correction(D17, -500),
+                new SheetBlockChecksums.Correction("18-10-2026", 500));
+        // The read is the new expectation
+        assertThat(compare(OCT, 0, List.of(D16, D16, "18-10-2026"), List.of("10", "25", "5"))).isEmpty();
+    }
+
+    @Test
+    void ownWritesAreExpectedWithoutReading() {
+        checksums.baseline(OCT, Map.of(OCT, sheet(row(D16, "10"))));
+
+        checksums.touch(OCT, 3, 8);
+        checksums.record(OCT, 3, List.of(row(D16, "1"), row(D16, "2"), row(D17, "3"), row(D17, "4"),
+                row(D17, "5"), row(D17, "6")));
+
+        assertThat(compare(OCT, 0, List.of(D16, D16, D16, D17, D17), List.of("10", "1", "2", "3", "4"))).isEmpty();
+        assertThat(compare(OCT, 1, List.of(D17, D17), List.of("5", "6"))).isEmpty();
+        // Block 1 had no rows at hydration, so it started out baselined and empty
+        assertThat(compare(OCT, 1, List.of(D17, D17, D17), List.of("5", "6", "7")))
+                .containsExactly(new SheetBlockChecksums.Correction(D17, 700));
+    }
+
+    @Test
+    void readOverlappingAWriteOrResetIsRetried() {
+        checksums.baseline(OCT, Map.of(OCT, sheet(row(D16, "10"))));
+
+        SheetBlockChecksums.Stamp stamp = checksums.stamp(OCT, 0);
+        checksums.touch(OCT, 3, 3);
+        assertThat(checksums.compare(OCT, 0, stamp, dates(D16), amounts("10"))).isNull();
+
+        stamp = checksums.stamp(OCT, 0);
+        checksums.reset(OCT);
+        assertThat(checksums.compare(OCT, 0, stamp, dates(D16), amounts("10"))).isNull();
+    }
+
+    @Test
+    void blockOfAResetMonthTakesItsFirstReadAsBaseline() {
+        checksums.baseline(OCT, Map.of(OCT, sheet(row(D16, "10"))));
+        checksums.reset(OCT);
+
+        assertThat(compare(OCT, 0, List.of(D16, D16), List.of("10", "99"))).isEmpty();
+        assertThat(compare(OCT, 0, List.of(D16), List.of("10")))
+                .containsExactly(new SheetBlockChecksums.Correction(D16, -9_900));
+    }
+
+    @Test
+    void lastRowFollowsTheSheetAcrossPartitions() {
+        Map<String, List<List<Object>>> rowsBySheet = new LinkedHashMap<>();
+        rowsBySheet.put(OCT, sheet(row(D16, "10"), row(D17, "5"), row(D16, "20")));
+        rowsBySheet.put(OCT_2, sheet(row(D16, "30")));
+        checksums.baseline(OCT, rowsBySheet);
+
+        assertThat(checksums.lastRowOf(OCT, D16)).isEqualTo(new SheetBlockChecksums.LastRow(OCT_2, 2));
+
+        // The second partition's row is deleted by hand
+        List<SheetBlockChecksums.Correction> corrections = compare(OCT_2, 0, List.of(), List.of());
+        assertThat(corrections).containsExactly(new SheetBlockChecksums.Correction(D16, -3_000));
+        assertThat(checksums.lastRowOf(OCT, D16)).isEqualTo(new SheetBlockChecksums.LastRow(OCT, 4));
+
+        // And so is the 17th's only row; its total cell must not point at a stale row
+        compare(OCT, 0, List.of(D16, "", D16), List.of("10", "", "20"));
+        assertThat(checksums.lastRowOf(OCT, D17)).isNull();
+
+        DailyTotalsStore dailyTotals = new DailyTotalsStore();
+        dailyTotals.hydrate(OCT, rowsBySheet);
+        DailyTotalsStore.DailyTotal d17 = dailyTotals.correct(OCT, D17, -500, checksums.lastRowOf(OCT, D17));
+        assertThat(d17.getTotalPaise()).isZero();
+        assertThat(d17.getLastSheet()).isNull();
+        assertThat(d17.getLastRow()).isEqualTo(-1);
+
+        DailyTotalsStore.DailyTotal d16 = dailyTotals.correct(OCT, D16, -3_000, checksums.lastRowOf(OCT, D16));
+        assertThat(d16.getTotalPaise()).isEqualTo(3_000);
+        assertThat(d16.getLastSheet()).isEqualTo(OCT);
+        assertThat(d16.getLastRow()).isEqualTo(4);
+    }
+
+    private List<SheetBlockChecksums.Correction> compare(String sheetName, int block,
+                                                         List<String> dates, List<String> amounts) {
+        SheetBlockChecksums.Stamp stamp = checksums.stamp(sheetName, block);
+        return checksums.compare(sheetName, block, stamp,
+                dates(dates.toArray(String[]::new)), amounts(amounts.toArray(String[]::new)));
+    }
+
+    private static List<List<Object>> dates(String... dates) {
+        List<List<Object>> column = new ArrayList<>();
+        for (String date : dates) column.add(date.isEmpty() ? List.of() : List.of(date));
+        return column;
+    }
+
+    private static List<List<Object>> amounts(String... amounts) {
+        return dates(amounts);
+    }
+
+    private static List<Object> row(String date, String amount) {
+        return List.of(date, "UPI", "user", "user@upi", amount, "Success");
+    }
+
+    @SafeVarargs
+    private static List<List<Object>> sheet(List<Object>... rows) {
+        List<List<Object>> sheet = new ArrayList<>();
+        sheet.add(List.of("Date", "Channel", "User", "UPI ID", "Amount", "Status"));
+        sheet.addAll(List.of(rows));
+        return sheet;
+    }
+}